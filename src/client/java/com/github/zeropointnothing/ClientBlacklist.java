@@ -0,0 +1,87 @@
+package com.github.zeropointnothing;
+
+import net.fabricmc.fabric.api.client.item.v1.ItemTooltipCallback;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
+import net.fabricmc.fabric.api.event.player.*;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.registry.Registries;
+import net.minecraft.screen.ScreenHandler;
+import net.minecraft.screen.slot.SlotActionType;
+import net.minecraft.text.Text;
+import net.minecraft.util.ActionResult;
+import net.minecraft.util.Formatting;
+import net.minecraft.util.Hand;
+import net.minecraft.util.TypedActionResult;
+import net.minecraft.world.World;
+
+import java.util.BitSet;
+
+/**
+ * The client's copy of its player's blacklist, as sent by the server's {@link BlacklistSender}.
+ * <p>
+ * Used to refuse uses and slot clicks the server would reject anyway, so they never cost a round trip and a
+ * resync, and to mark blacklisted items in tooltips. The server stays authoritative: anything not predicted here
+ * (data rules, container contents) is still caught there. Without a modded server, nothing is ever denied.
+ */
+public final class ClientBlacklist {
+    /**
+     * Replaced as a whole, never modified, so the render thread never sees a half-applied packet.
+     */
+    private static volatile BitSet denied = new BitSet();
+
+    private ClientBlacklist() {}
+
+    public static void register() {
+        // Packets arrive in order on the network thread, so each one can safely build on the last.
+        ClientPlayNetworking.registerGlobalReceiver(BlacklistPacket.ID, (client, handler, buf, responseSender) -> {
+            BitSet next = (BitSet) denied.clone();
+            BlacklistPacket.read(buf, next);
+            denied = next;
+        });
+        ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> denied = new BitSet());
+
+        UseBlockCallback.EVENT.register((player, world, hand, hitResult) -> predict(player, world, hand));
+        AttackBlockCallback.EVENT.register((player, world, hand, pos, direction) -> predict(player, world, hand));
+        UseEntityCallback.EVENT.register((player, world, hand, entity, hitResult) -> predict(player, world, hand));
+        AttackEntityCallback.EVENT.register((player, world, hand, entity, hitResult) -> predict(player, world, hand));
+        UseItemCallback.EVENT.register((player, world, hand) -> {
+            ItemStack stack = player.getStackInHand(hand);
+            return predict(player, world, hand) == ActionResult.FAIL ? TypedActionResult.fail(stack) : TypedActionResult.pass(stack);
+        });
+
+        ItemTooltipCallback.EVENT.register((stack, context, lines) -> {
+            if (isBlacklisted(stack)) {
+                lines.add(Text.literal("Blacklisted").formatted(Formatting.RED));
+            }
+        });
+    }
+
+    public static boolean isBlacklisted(ItemStack stack) {
+        return !stack.isEmpty() && denied.get(Registries.ITEM.getRawId(stack.getItem()));
+    }
+
+    /**
+     * Mirrors the checks the server makes before a slot click: a click is refused if the clicked slot holds a
+     * blacklisted stack, and a drag if it ends with one on the cursor. What the server checks after the click, the
+     * cursor it leaves behind, can't be known beforehand, so those clicks are sent and corrected by the server.
+     * @return Whether the click should not happen
+     */
+    public static boolean deniesClick(PlayerEntity player, int slotId, int button, SlotActionType actionType) {
+        ScreenHandler handler = player.currentScreenHandler;
+        if (actionType == SlotActionType.QUICK_CRAFT) {
+            return ScreenHandler.unpackQuickCraftStage(button) == 2 && isBlacklisted(handler.getCursorStack());
+        }
+        // Slot -999 (outside the screen) has no stack, the server lets it through as well
+        return slotId >= 0 && slotId < handler.slots.size() && isBlacklisted(handler.getSlot(slotId).getStack());
+    }
+
+    // The server's own callbacks pass on the client, so only these decide there.
+    private static ActionResult predict(PlayerEntity player, World world, Hand hand) {
+        if (world.isClient && isBlacklisted(player.getStackInHand(hand))) {
+            return ActionResult.FAIL;
+        }
+        return ActionResult.PASS;
+    }
+}
@@ -0,0 +1,10 @@
+package com.github.zeropointnothing;
+
+import net.fabricmc.api.ClientModInitializer;
+
+public class ItemsBegoneClient implements ClientModInitializer {
+	@Override
+	public void onInitializeClient() {
+		ClientBlacklist.register();
+	}
+}
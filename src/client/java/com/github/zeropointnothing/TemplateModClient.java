@@ -1,10 +0,0 @@
-package com.github.zeropointnothing;
-
-import net.fabricmc.api.ClientModInitializer;
-
-public class TemplateModClient implements ClientModInitializer {
-	@Override
-	public void onInitializeClient() {
-		// This entrypoint is suitable for setting up client-specific logic, such as rendering.
-	}
-}
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.github.zeropointnothing.mixin.client;
+
+import com.github.zeropointnothing.ClientBlacklist;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.screen.slot.SlotActionType;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(net.minecraft.client.network.ClientPlayerInteractionManager.class)
+public class ClientPlayerInteractionManager {
+    // Refuse the click before it is applied locally or sent, instead of letting the server reject it and resync the
+    // whole screen.
+    @Inject(method = "clickSlot", at = @At("HEAD"), cancellable = true)
+    private void onClickSlot(int syncId, int slotId, int button, SlotActionType actionType, PlayerEntity player, CallbackInfo ci) {
+        if (ClientBlacklist.deniesClick(player, slotId, button, actionType)) {
+            ci.cancel();
+        }
+    }
+}
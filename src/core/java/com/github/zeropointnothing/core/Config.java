@@ -0,0 +1,285 @@
+package com.github.zeropointnothing.core;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+public class Config {
+    public Boolean delete_on_deny;
+    /**
+     * What to do with players whose team has no entry in the blacklist. Treated as {@link UnknownTeamFallback#GLOBAL}
+     * when missing.
+     */
+    public UnknownTeamFallback unknown_team_fallback;
+    /**
+     * Settings for the periodic inventory sweep. Defaults are used when missing.
+     */
+    public SweepConfig sweep;
+    /**
+     * Settings for scanning containers as their chunks load. Defaults (disabled) are used when missing.
+     */
+    public ContainerConfig containers;
+    /**
+     * Settings for the denial audit log. Defaults are used when missing.
+     */
+    public AuditConfig audit;
+    /**
+     * Settings for sharing blacklist edits with other servers. Defaults (disabled) are used when missing.
+     */
+    public SyncConfig sync;
+    /**
+     * Settings for confiscating denied items instead of dropping them. Defaults (disabled) are used when missing.
+     */
+    public VaultConfig vault;
+    public final TeamList blacklist;
+    /**
+     * Exceptions and extra bans for single players, applied on top of their team's rules. Optional in the config file.
+     */
+    public List<PlayerOverride> players;
+
+    public Config(TeamList blacklist, Boolean delete_on_deny) {
+        this.blacklist = blacklist;
+        this.delete_on_deny = delete_on_deny;
+        this.players = new ArrayList<>();
+    }
+
+    /**
+     * @param player A player's UUID or name
+     * @return The player's override, or null if they have none
+     */
+    public PlayerOverride getPlayer(String player) {
+        for (PlayerOverride override : players) {
+            if (override.player.equalsIgnoreCase(player)) {
+                return override;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Copies the team lists and player overrides, which edits change. Nbt rules and the settings sections are never
+     * modified once loaded, so the copy shares them.
+     * @return A copy of this config that shares no mutable state with it, safe to hand to another thread
+     */
+    public Config copy() {
+        List<TeamConfig> teams = new ArrayList<>(blacklist.teams.size());
+        for (TeamConfig team : blacklist.teams) {
+            TeamConfig copy = new TeamConfig(
+                    team.name, new ArrayList<>(team.namespace_blacklist), new ArrayList<>(team.item_blacklist), team.enabled
+            );
+            copy.tag_blacklist = new ArrayList<>(team.tag_blacklist);
+            copy.pattern_blacklist = new ArrayList<>(team.pattern_blacklist);
+            copy.nbt_blacklist = new ArrayList<>(team.nbt_blacklist);
+            teams.add(copy);
+        }
+        Config copy = new Config(new TeamList(teams), delete_on_deny);
+        copy.players = new ArrayList<>(players.size());
+        for (PlayerOverride override : players) {
+            copy.players.add(new PlayerOverride(override.player, new ArrayList<>(override.allow), new ArrayList<>(override.deny)));
+        }
+        copy.unknown_team_fallback = unknown_team_fallback;
+        copy.sweep = sweep;
+        copy.containers = containers;
+        copy.audit = audit;
+        copy.sync = sync;
+        copy.vault = vault;
+        return copy;
+    }
+
+    public enum UnknownTeamFallback {
+        /** Apply only the 'global' rules. */
+        @SerializedName("global") GLOBAL,
+        /** Deny every item. */
+        @SerializedName("deny") DENY,
+        /** Allow every item, 'global' rules included. */
+        @SerializedName("allow") ALLOW
+    }
+
+    public static class SweepConfig {
+        public Boolean enabled = true;
+        /** How often every online player should be swept, in ticks, while the server keeps up. */
+        public Integer interval_ticks = 100;
+        /** The interval never stretches past this, however slow the server gets. */
+        public Integer max_interval_ticks = 1200;
+        /** Above this MSPT, the interval is stretched proportionally. */
+        public Double target_mspt = 40.0;
+        public Integer max_players_per_tick = 8;
+        public Integer max_micros_per_tick = 500;
+    }
+
+    /**
+     * Containers have no team, so they are checked against the 'global' rules.
+     */
+    public static class ContainerConfig {
+        public Boolean enabled = false;
+        public Integer max_per_tick = 32;
+        public Integer max_micros_per_tick = 500;
+    }
+
+    public static class AuditConfig {
+        public Boolean enabled = true;
+        /** Repeated denials of the same item for the same player are merged into one entry per window. */
+        public Integer window_seconds = 5;
+        /** Denials past this many per player per window are only counted, not recorded individually. */
+        public Integer max_events_per_player = 20;
+        public Boolean log_to_console = true;
+        public Long max_file_bytes = 10L * 1024 * 1024;
+        public Integer max_files = 5;
+    }
+
+    /**
+     * Only applies while 'delete_on_deny' is false.
+     */
+    public static class VaultConfig {
+        /** Moves denied stacks into the player's vault, instead of dropping them at their feet. */
+        public Boolean enabled = false;
+        /** How often changed vaults are written to disk, in ticks. */
+        public Integer save_interval_ticks = 100;
+    }
+
+    /**
+     * Only the team lists and player overrides are shared between servers, every other setting stays local.
+     */
+    public static class SyncConfig {
+        public Boolean enabled = false;
+        /** 'directory' for a directory every server can reach, or 'local' for servers within the same process. */
+        public String backend = "directory";
+        /** The shared directory (or channel name, for 'local'), relative to the config directory. */
+        public String location = "itemsbegone_sync";
+        /** Identifies this server in the change log. A random id is used when missing. */
+        public String node_id = null;
+        public Integer poll_ticks = 20;
+        /** Once this many changes pile up after the last snapshot, they are compacted into a new one. */
+        public Integer compact_after = 256;
+    }
+
+    public static class TeamList {
+        public List<TeamConfig> teams;
+        public TeamList(List<TeamConfig> default_teams) {
+            this.teams = default_teams;
+        }
+
+        public TeamConfig getTeam(String name) {
+            for (TeamConfig team : teams) {
+                if (Objects.equals(team.name, name)) {
+                    return team;
+                }
+            }
+
+            throw new NoSuchTeamException("No such team with name '" + name + "'!");
+//            throw new RuntimeException("No such team with name " + name + "!");
+        }
+
+        public void addTeam(String name, List<String> blacklist_namespace, List<String> blacklist_item, Boolean enabled) {
+            TeamConfig new_team = new TeamConfig(name, blacklist_namespace, blacklist_item, enabled);
+            teams.add(new_team);
+        }
+    }
+
+    public static class TeamConfig {
+        public String name;
+        public Boolean enabled;
+        public List<String> namespace_blacklist;
+        public List<String> item_blacklist;
+        /**
+         * Item tags (ex. 'c:ores'), resolved into items whenever the config is compiled or datapacks are reloaded.
+         * Optional in the config file.
+         */
+        public List<String> tag_blacklist;
+        /**
+         * Globs over item ids (ex. 'create:*_casing'), or regular expressions when prefixed with 'regex:'.
+         * Optional in the config file.
+         */
+        public List<String> pattern_blacklist;
+        /**
+         * Items that are only denied when they carry certain data. Optional in the config file.
+         */
+        public List<NbtRule> nbt_blacklist;
+
+        public TeamConfig(String name, List<String> namespace_blacklist, List<String> item_blacklist, Boolean enabled) {
+            if (
+                    name == null || enabled == null || namespace_blacklist == null || item_blacklist == null
+            ) {
+                throw new IllegalArgumentException("TeamConfig can not be initialized with null values!");
+            }
+            this.name = name;
+            this.enabled = enabled;
+            this.namespace_blacklist = namespace_blacklist;
+            this.item_blacklist = item_blacklist;
+            this.tag_blacklist = new ArrayList<>();
+            this.pattern_blacklist = new ArrayList<>();
+            this.nbt_blacklist = new ArrayList<>();
+        }
+    }
+
+    public static class NbtRule {
+        /** The item id (ex. 'minecraft:diamond_sword'), or an item tag prefixed with '#'. */
+        public String item;
+        /**
+         * SNBT the stack's NBT has to contain for it to be denied, ex. '{Enchantments:[{id:"minecraft:sharpness"}]}'.
+         * Compounds only need the listed keys and lists only the listed elements, same as the item predicates of
+         * vanilla commands.
+         */
+        public String nbt;
+
+        public NbtRule(String item, String nbt) {
+            this.item = item;
+            this.nbt = nbt;
+        }
+    }
+
+    /**
+     * Entries use the same syntax as list files: item ids, namespaces prefixed with '@', tags prefixed with '#', and
+     * globs or 'regex:' patterns.
+     */
+    public static class PlayerOverride {
+        /** The player's UUID, or their name. */
+        public String player;
+        /** Entries the player may use even if their team (or 'global') denies them. */
+        public List<String> allow;
+        /** Entries denied to the player on top of their team's rules. */
+        public List<String> deny;
+
+        public PlayerOverride(String player, List<String> allow, List<String> deny) {
+            this.player = player;
+            this.allow = allow;
+            this.deny = deny;
+        }
+    }
+
+    /**
+     * The kinds of entries a list file or {@link PlayerOverride} can hold.
+     */
+    public enum EntryKind {
+        ITEM,
+        NAMESPACE,
+        TAG,
+        PATTERN;
+
+        public static EntryKind of(String entry) {
+            if (entry.startsWith("@")) {
+                return NAMESPACE;
+            } else if (entry.startsWith("#")) {
+                return TAG;
+            } else if (entry.startsWith("regex:") || entry.indexOf('*') >= 0 || entry.indexOf('?') >= 0) {
+                return PATTERN;
+            }
+            return ITEM;
+        }
+
+        /**
+         * @return The entry without its prefix, as it is stored in a {@link TeamConfig} list
+         */
+        public String value(String entry) {
+            return this == NAMESPACE || this == TAG ? entry.substring(1) : entry;
+        }
+    }
+
+    public static class NoSuchTeamException extends RuntimeException {
+        public NoSuchTeamException(String errorMessage) {
+            super(errorMessage);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.github.zeropointnothing.core;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+import java.util.ArrayList;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Reads, validates and writes the config file format. Touches no shared state, so it is safe to call from any thread.
+ */
+public final class ConfigCodec {
+    static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    private ConfigCodec() {}
+
+    /**
+     * Parses and validates a config.
+     * @param json The contents of the config file
+     * @return The parsed config
+     * @throws JsonParseException If the config is malformed
+     */
+    public static Config read(String json) throws JsonParseException {
+        return validate(GSON.fromJson(json, Config.class));
+    }
+
+    /**
+     * @param config The config to serialize
+     * @return The config as it should be written to disk
+     */
+    public static String write(Config config) {
+        return GSON.toJson(config);
+    }
+
+    /**
+     * Checks that a config has every required value, filling in the ones older configs may be missing.
+     * @param config The config to validate
+     * @return The same config
+     * @throws JsonParseException If the config is malformed
+     */
+    public static Config validate(Config config) throws JsonParseException {
+        // Validate the config.
+        if (config == null) {
+            throw new JsonParseException("Config is empty!");
+        }
+        if (config.delete_on_deny == null) {
+            throw new JsonParseException("Required config value 'delete_on_deny' is not present!");
+        }
+        if (config.blacklist == null) {
+            throw new JsonParseException("Required config value 'blacklist' is not present!");
+        }
+        if (config.blacklist.teams == null) {
+            throw new JsonParseException("Required config value 'blacklist.teams' is not present!");
+        }
+        if (config.sweep == null) {
+            config.sweep = new Config.SweepConfig();
+        }
+        if (
+                config.sweep.enabled == null
+                || config.sweep.interval_ticks == null || config.sweep.interval_ticks < 1
+                || config.sweep.max_interval_ticks == null || config.sweep.max_interval_ticks < config.sweep.interval_ticks
+                || config.sweep.target_mspt == null || config.sweep.target_mspt <= 0
+                || config.sweep.max_players_per_tick == null || config.sweep.max_players_per_tick < 1
+                || config.sweep.max_micros_per_tick == null || config.sweep.max_micros_per_tick < 1
+        ) {
+            throw new JsonParseException("Config value 'sweep' is malformed!");
+        }
+        if (config.containers == null) {
+            config.containers = new Config.ContainerConfig();
+        }
+        if (
+                config.containers.enabled == null
+                || config.containers.max_per_tick == null || config.containers.max_per_tick < 1
+                || config.containers.max_micros_per_tick == null || config.containers.max_micros_per_tick < 1
+        ) {
+            throw new JsonParseException("Config value 'containers' is malformed!");
+        }
+        if (config.audit == null) {
+            config.audit = new Config.AuditConfig();
+        }
+        if (
+                config.audit.enabled == null || config.audit.log_to_console == null
+                || config.audit.window_seconds == null || config.audit.window_seconds < 1
+                || config.audit.max_events_per_player == null || config.audit.max_events_per_player < 1
+                || config.audit.max_file_bytes == null || config.audit.max_file_bytes < 1024
+                || config.audit.max_files == null || config.audit.max_files < 1
+        ) {
+            throw new JsonParseException("Config value 'audit' is malformed!");
+        }
+        if (config.sync == null) {
+            config.sync = new Config.SyncConfig();
+        }
+        if (
+                config.sync.enabled == null || config.sync.backend == null || config.sync.location == null
+                || !(config.sync.backend.equals("directory") || config.sync.backend.equals("local"))
+                || config.sync.poll_ticks == null || config.sync.poll_ticks < 1
+                || config.sync.compact_after == null || config.sync.compact_after < 1
+        ) {
+            throw new JsonParseException("Config value 'sync' is malformed!");
+        }
+        if (config.vault == null) {
+            config.vault = new Config.VaultConfig();
+        }
+        if (
+                config.vault.enabled == null
+                || config.vault.save_interval_ticks == null || config.vault.save_interval_ticks < 1
+        ) {
+            throw new JsonParseException("Config value 'vault' is malformed!");
+        }
+        if (config.players == null) {
+            config.players = new ArrayList<>();
+        }
+        for (Config.PlayerOverride override : config.players) {
+            if (override == null || override.player == null) {
+                throw new JsonParseException("A player override within config is malformed!");
+            }
+            if (override.allow == null) {
+                override.allow = new ArrayList<>();
+            }
+            if (override.deny == null) {
+                override.deny = new ArrayList<>();
+            }
+            for (String entry : override.allow) {
+                validateEntry(override.player, entry);
+            }
+            for (String entry : override.deny) {
+                validateEntry(override.player, entry);
+            }
+        }
+        // Validate teams as well
+        for (int i=0; i<config.blacklist.teams.size(); i++) {
+            Config.TeamConfig team = config.blacklist.teams.get(i);
+            if (
+                    team == null
+                    || team.item_blacklist == null
+                    || team.enabled == null
+                    || team.namespace_blacklist == null
+                    || team.name == null
+            ) {
+                throw new JsonParseException("Team '" + (i+1) + "' within config is malformed!");
+            }
+            // Added in later versions, so older configs won't have them.
+            if (team.tag_blacklist == null) {
+                team.tag_blacklist = new ArrayList<>();
+            }
+            if (team.pattern_blacklist == null) {
+                team.pattern_blacklist = new ArrayList<>();
+            }
+            if (team.nbt_blacklist == null) {
+                team.nbt_blacklist = new ArrayList<>();
+            }
+            for (String tag : team.tag_blacklist) {
+                if (!RuleSet.isValidId(tag.startsWith("#") ? tag.substring(1) : tag)) {
+                    throw new JsonParseException("Team '" + team.name + "' has an invalid tag '" + tag + "'!");
+                }
+            }
+            for (String pattern : team.pattern_blacklist) {
+                try {
+                    RuleSet.compilePattern(pattern);
+                } catch (PatternSyntaxException e) {
+                    throw new JsonParseException("Team '" + team.name + "' has an invalid pattern '" + pattern + "'!", e);
+                }
+            }
+            for (Config.NbtRule rule : team.nbt_blacklist) {
+                // The NBT itself can only be checked by the ItemCatalog, when the rules are compiled.
+                if (
+                        rule == null || rule.item == null || rule.nbt == null
+                        || !RuleSet.isValidId(rule.item.startsWith("#") ? rule.item.substring(1) : rule.item)
+                ) {
+                    throw new JsonParseException("Team '" + team.name + "' has a malformed nbt rule!");
+                }
+            }
+        }
+        return config;
+    }
+
+    private static void validateEntry(String player, String entry) {
+        Config.EntryKind kind = entry == null ? null : Config.EntryKind.of(entry);
+        if (kind == Config.EntryKind.PATTERN) {
+            try {
+                RuleSet.compilePattern(entry);
+                return;
+            } catch (PatternSyntaxException e) {
+                throw new JsonParseException("Player '" + player + "' has an invalid pattern '" + entry + "'!", e);
+            }
+        }
+        if (kind == null || !RuleSet.isValidId(kind.value(entry))) {
+            throw new JsonParseException("Player '" + player + "' has an invalid entry '" + entry + "'!");
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.github.zeropointnothing.core;
+
+/**
+ * A compiled {@link Config.NbtRule#nbt}. Only the {@link ItemCatalog} knows what item data looks like, so it creates
+ * these, and the same side hands its own stacks back to {@link #test(Object)}.
+ */
+@FunctionalInterface
+public interface DataPredicate {
+    /**
+     * @param stack The stack to test, of whatever type the {@link ItemCatalog} works with
+     * @return Whether the stack's data matches
+     */
+    boolean test(Object stack);
+}
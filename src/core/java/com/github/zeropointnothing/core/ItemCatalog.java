@@ -0,0 +1,44 @@
+package com.github.zeropointnothing.core;
+
+/**
+ * The items rules are compiled against. In game this is the item registry, but anything that can number its items
+ * will do, so rules can be compiled and evaluated without Minecraft.
+ * <p>
+ * Raw ids are the ones {@link RuleSet.TeamRules#isBlacklisted(int)} is asked about, and should be small and dense.
+ */
+public interface ItemCatalog {
+    /**
+     * @return One more than the highest raw id
+     */
+    int size();
+
+    /**
+     * @param rawId A raw id below {@link #size()}
+     * @return The full id ('namespace:path') of the item, or null if no item has this raw id
+     */
+    String id(int rawId);
+
+    /**
+     * @param id An item id as written in the config
+     * @return The raw id of the item, or -1 if there is no such item
+     */
+    int rawId(String id);
+
+    /**
+     * @param tag A tag id as written in the config, with or without the leading '#'
+     * @return The raw ids of the items in the tag, empty if the tag is unknown or not loaded yet
+     */
+    int[] tag(String tag);
+
+    /**
+     * @param nbt The {@link Config.NbtRule#nbt} of a rule
+     * @return The compiled predicate
+     * @throws IllegalArgumentException If the data can not be parsed
+     */
+    DataPredicate data(String nbt);
+
+    /**
+     * @return The raw id of the 'empty' item, which is never denied, or -1 if there is none
+     */
+    int empty();
+}
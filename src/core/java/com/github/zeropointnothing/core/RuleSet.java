@@ -0,0 +1,476 @@
+package com.github.zeropointnothing.core;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Compiled, immutable view of a {@link Config}.
+ * <p>
+ * Every team is merged with 'global' and flattened into a bitset keyed by raw item id (see {@link ItemCatalog}), so
+ * checking an item is a single array read. Namespaces, tags and patterns are all resolved into that bitset here, so
+ * none of them cost anything extra at check time. A rule set is never modified after it is built; edits compile a
+ * new one.
+ */
+public final class RuleSet {
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    /**
+     * Increases every time a rule set is compiled, so anything derived from an older one can tell it is stale.
+     */
+    public final long version;
+    public final boolean deleteOnDeny;
+    public final Config.SweepConfig sweep;
+    public final Config.ContainerConfig containers;
+    public final Config.AuditConfig audit;
+    public final Config.SyncConfig sync;
+    public final Config.VaultConfig vault;
+    // Package-private for RuleSetCache
+    final Map<String, TeamRules> teams;
+    final TeamRules global;
+    final Config.UnknownTeamFallback fallbackMode;
+    /** Player overrides by lowercase UUID or name. */
+    final Map<String, PlayerRules> players;
+    private final TeamRules fallback;
+    /** The rules of every team and override combination resolved so far. Dropped along with this rule set. */
+    private final Map<String, TeamRules> effective = new ConcurrentHashMap<>();
+
+    /**
+     * A compiled {@link Config.PlayerOverride}.
+     * @param allow Items removed from the team's rules
+     * @param deny Items added to the team's rules, after the allowed ones are removed
+     */
+    record PlayerRules(BitSet allow, BitSet deny) {}
+
+    RuleSet(
+            long version,
+            boolean deleteOnDeny,
+            Config.SweepConfig sweep,
+            Config.ContainerConfig containers,
+            Config.AuditConfig audit,
+            Config.SyncConfig sync,
+            Config.VaultConfig vault,
+            Map<String, TeamRules> teams,
+            TeamRules global,
+            Config.UnknownTeamFallback fallbackMode,
+            Map<String, PlayerRules> players,
+            TeamRules fallback
+    ) {
+        this.version = version;
+        this.deleteOnDeny = deleteOnDeny;
+        this.sweep = sweep;
+        this.containers = containers;
+        this.audit = audit;
+        this.sync = sync;
+        this.vault = vault;
+        this.teams = teams;
+        this.global = global;
+        this.fallbackMode = fallbackMode;
+        this.players = players;
+        this.fallback = fallback;
+    }
+
+    /**
+     * The compiled rules of a single team, already merged with 'global'. These are the team handles callers hold on
+     * to between checks.
+     */
+    public static final class TeamRules {
+        /** Rules that deny nothing, for players nothing is enforced on here (ex. on the client). */
+        public static final TeamRules NONE = new TeamRules("none", 0, new BitSet());
+
+        public final String name;
+        /** The {@link RuleSet#version} these rules were compiled under. */
+        public final long version;
+        /**
+         * A hash of the denied items and data rules. Unlike {@link #version} it is stable across restarts, so it can
+         * be stored alongside things that were verified against these rules. Never 0.
+         */
+        public final long fingerprint;
+        /**
+         * Whether these rules deny nothing at all, ex. a disabled team or one with empty lists while 'global' is
+         * empty too. Callers check this first and skip all other work.
+         */
+        public final boolean empty;
+        private final long[] words;
+        final SortedMap<Integer, List<String>> dataRules;
+        // Raw ids that have data rules and aren't denied outright. Only these ever need their data read.
+        private final long[] candidates;
+        private final Map<Integer, DataPredicate[]> data;
+
+        TeamRules(String name, long version, BitSet items, SortedMap<Integer, List<String>> dataRules, Map<String, DataPredicate> compiled) {
+            this.name = name;
+            this.version = version;
+            this.words = items.toLongArray();
+            this.dataRules = dataRules;
+
+            BitSet candidates = new BitSet();
+            Map<Integer, DataPredicate[]> data = new HashMap<>();
+            long hash = 1125899906842597L;
+            for (long word : words) {
+                hash = 31 * hash + word;
+            }
+            for (Map.Entry<Integer, List<String>> entry : dataRules.entrySet()) {
+                if (items.get(entry.getKey())) {
+                    continue;
+                }
+                candidates.set(entry.getKey());
+                data.put(entry.getKey(), entry.getValue().stream().map(compiled::get).toArray(DataPredicate[]::new));
+                for (String nbt : entry.getValue()) {
+                    hash = 31 * hash + (entry.getKey() ^ nbt.hashCode());
+                }
+            }
+            this.candidates = candidates.toLongArray();
+            this.data = Map.copyOf(data);
+            this.fingerprint = hash == 0 ? 1 : hash;
+            this.empty = items.isEmpty() && data.isEmpty();
+        }
+
+        TeamRules(String name, long version, BitSet items) {
+            this(name, version, items, Collections.emptySortedMap(), Map.of());
+        }
+
+        /**
+         * Applies a player override to these rules. Allowed items lose their data rules as well.
+         */
+        TeamRules override(String name, PlayerRules player) {
+            BitSet items = denied();
+            items.andNot(player.allow());
+            items.or(player.deny());
+
+            SortedMap<Integer, List<String>> dataRules = new TreeMap<>(this.dataRules);
+            dataRules.keySet().removeIf(player.allow()::get);
+            Map<String, DataPredicate> compiled = new HashMap<>();
+            for (Map.Entry<Integer, List<String>> entry : dataRules.entrySet()) {
+                DataPredicate[] predicates = data.get(entry.getKey());
+                if (predicates == null) {
+                    continue; // Denied outright here, and the override doesn't change that
+                }
+                for (int i = 0; i < predicates.length; i++) {
+                    compiled.put(entry.getValue().get(i), predicates[i]);
+                }
+            }
+            return new TeamRules(name, version, items, dataRules, compiled);
+        }
+
+        /**
+         * @return A copy of the items denied outright, by raw id
+         */
+        public BitSet denied() {
+            return BitSet.valueOf(words);
+        }
+
+        /**
+         * Checks the id alone. Items with data rules are only denied by this if the id is denied outright.
+         */
+        public boolean isBlacklisted(int rawId) {
+            int word = rawId >>> 6;
+            return word < words.length && (words[word] & (1L << rawId)) != 0;
+        }
+
+        /**
+         * @return Whether the item has data rules that {@link #matchesData(int, Object)} needs to look at
+         */
+        public boolean hasDataRules(int rawId) {
+            int word = rawId >>> 6;
+            return word < candidates.length && (candidates[word] & (1L << rawId)) != 0;
+        }
+
+        /**
+         * @param rawId An item for which {@link #hasDataRules(int)} is true
+         * @param stack The stack, passed on to the {@link DataPredicate}s
+         * @return Whether any data rule of the item matches the stack
+         */
+        public boolean matchesData(int rawId, Object stack) {
+            for (DataPredicate predicate : data.get(rawId)) {
+                if (predicate.test(stack)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Resolves the rules for a team, using the configured {@link Config.UnknownTeamFallback} if the team has no
+     * entry. Unlike {@link #getTeam(String)}, this never throws.
+     * @param name The name of the team
+     * @return The rules to apply to the team
+     */
+    public TeamRules resolve(String name) {
+        TeamRules rules = teams.get(name);
+        return rules != null ? rules : fallback;
+    }
+
+    /**
+     * Resolves the rules for a player, with their override (if any) applied on top of their team's rules. The
+     * result is computed once per team and override, and shared until the config is compiled again.
+     * @param team The name of the player's team
+     * @param uuid The player's UUID
+     * @param name The player's name, used if there is no override for their UUID
+     * @return The rules to apply to the player
+     */
+    public TeamRules resolve(String team, String uuid, String name) {
+        TeamRules rules = resolve(team);
+        if (players.isEmpty()) {
+            return rules;
+        }
+        String key = players.containsKey(uuid) ? uuid : name.toLowerCase(Locale.ROOT);
+        PlayerRules override = players.get(key);
+        if (override == null) {
+            return rules;
+        }
+        return effective.computeIfAbsent(team + '\0' + key, k -> rules.override(rules.name + "+" + key, override));
+    }
+
+    /**
+     * @return The rules of the 'global' team alone, empty if there is none
+     */
+    public TeamRules global() {
+        return global;
+    }
+
+    public TeamRules getTeam(String name) {
+        TeamRules rules = teams.get(name);
+        if (rules == null) {
+            throw new Config.NoSuchTeamException("No such team with name '" + name + "'!");
+        }
+        return rules;
+    }
+
+    /**
+     * Compiles a config. Touches no shared state other than the version counter, so it is safe to call from any
+     * thread.
+     * @param config A config that has passed {@link ConfigCodec#validate(Config)}
+     * @param catalog The items to compile against
+     * @return The compiled rules
+     */
+    public static RuleSet compile(Config config, ItemCatalog catalog) {
+        // Resolve every namespace up front, so each team only has to OR together a few bitsets.
+        Map<String, BitSet> namespaces = new HashMap<>();
+        String[] ids = new String[catalog.size()];
+        for (int rawId = 0; rawId < ids.length; rawId++) {
+            String id = catalog.id(rawId);
+            if (id != null) {
+                ids[rawId] = id;
+                namespaces.computeIfAbsent(id.substring(0, id.indexOf(':')), k -> new BitSet()).set(rawId);
+            }
+        }
+
+        // Compile every distinct predicate once, however many teams share it.
+        Map<String, DataPredicate> compiled = new HashMap<>();
+        for (Config.TeamConfig team : config.blacklist.teams) {
+            for (Config.NbtRule rule : team.nbt_blacklist) {
+                if (!compiled.containsKey(rule.nbt)) {
+                    try {
+                        compiled.put(rule.nbt, catalog.data(rule.nbt));
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException(
+                                "Team '" + team.name + "' has an nbt rule with invalid nbt '" + rule.nbt + "'!", e
+                        );
+                    }
+                }
+            }
+        }
+
+        BitSet global = new BitSet();
+        SortedMap<Integer, List<String>> globalData = new TreeMap<>();
+        Config.TeamConfig globalTeam = null;
+        for (Config.TeamConfig team : config.blacklist.teams) {
+            if (Objects.equals(team.name, "global")) {
+                globalTeam = team;
+                if (team.enabled) {
+                    global = teamBits(team, catalog, namespaces, ids);
+                    addDataRules(globalData, team, catalog);
+                }
+                break;
+            }
+        }
+
+        long version = nextVersion();
+        int empty = catalog.empty();
+        Map<String, TeamRules> teams = new HashMap<>();
+        for (Config.TeamConfig team : config.blacklist.teams) {
+            if (teams.containsKey(team.name)) {
+                continue; // getTeam has always returned the first match
+            }
+            BitSet bits = (BitSet) global.clone();
+            SortedMap<Integer, List<String>> data = new TreeMap<>();
+            globalData.forEach((rawId, rules) -> data.put(rawId, new ArrayList<>(rules)));
+            if (team.enabled) {
+                bits.or(teamBits(team, catalog, namespaces, ids));
+                if (team != globalTeam) {
+                    addDataRules(data, team, catalog);
+                }
+            }
+            // An empty slot is never something to deny, even if its namespace is.
+            clear(bits, empty);
+            teams.put(team.name, new TeamRules(team.name, version, bits, data, compiled));
+        }
+
+        clear(global, empty);
+        TeamRules globalRules = teams.getOrDefault("global", new TeamRules("global", version, global, globalData, compiled));
+
+        Config.UnknownTeamFallback mode = Objects.requireNonNullElse(
+                config.unknown_team_fallback, Config.UnknownTeamFallback.GLOBAL
+        );
+
+        Map<String, PlayerRules> players = new HashMap<>();
+        for (Config.PlayerOverride override : config.players) {
+            BitSet deny = teamBits(entries(override.player, override.deny), catalog, namespaces, ids);
+            clear(deny, empty);
+            players.putIfAbsent(override.player.toLowerCase(Locale.ROOT), new PlayerRules(
+                    teamBits(entries(override.player, override.allow), catalog, namespaces, ids), deny
+            ));
+        }
+
+        return new RuleSet(
+                version,
+                config.delete_on_deny,
+                Objects.requireNonNullElseGet(config.sweep, Config.SweepConfig::new),
+                Objects.requireNonNullElseGet(config.containers, Config.ContainerConfig::new),
+                Objects.requireNonNullElseGet(config.audit, Config.AuditConfig::new),
+                Objects.requireNonNullElseGet(config.sync, Config.SyncConfig::new),
+                Objects.requireNonNullElseGet(config.vault, Config.VaultConfig::new),
+                Map.copyOf(teams),
+                globalRules,
+                mode,
+                Map.copyOf(players),
+                fallback(mode, globalRules, catalog, version)
+        );
+    }
+
+    static long nextVersion() {
+        return VERSIONS.incrementAndGet();
+    }
+
+    static TeamRules fallback(Config.UnknownTeamFallback mode, TeamRules global, ItemCatalog catalog, long version) {
+        return switch (mode) {
+            case DENY -> {
+                BitSet all = new BitSet();
+                all.set(0, catalog.size());
+                clear(all, catalog.empty());
+                yield new TeamRules("<deny>", version, all);
+            }
+            case ALLOW -> new TeamRules("<allow>", version, new BitSet());
+            default -> global;
+        };
+    }
+
+    private static void addDataRules(SortedMap<Integer, List<String>> data, Config.TeamConfig team, ItemCatalog catalog) {
+        for (Config.NbtRule rule : team.nbt_blacklist) {
+            int[] rawIds = rule.item.startsWith("#") ? catalog.tag(rule.item) : new int[] {catalog.rawId(rule.item)};
+            for (int rawId : rawIds) {
+                if (rawId >= 0) {
+                    List<String> rules = data.computeIfAbsent(rawId, k -> new ArrayList<>());
+                    if (!rules.contains(rule.nbt)) {
+                        rules.add(rule.nbt);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Sorts override entries into the lists of a team, so they compile the same way.
+     */
+    private static Config.TeamConfig entries(String name, List<String> entries) {
+        Config.TeamConfig team = new Config.TeamConfig(name, new ArrayList<>(), new ArrayList<>(), true);
+        for (String entry : entries) {
+            Config.EntryKind kind = Config.EntryKind.of(entry);
+            (switch (kind) {
+                case ITEM -> team.item_blacklist;
+                case NAMESPACE -> team.namespace_blacklist;
+                case TAG -> team.tag_blacklist;
+                case PATTERN -> team.pattern_blacklist;
+            }).add(kind.value(entry));
+        }
+        return team;
+    }
+
+    private static void clear(BitSet bits, int rawId) {
+        if (rawId >= 0) {
+            bits.clear(rawId);
+        }
+    }
+
+    private static BitSet teamBits(Config.TeamConfig team, ItemCatalog catalog, Map<String, BitSet> namespaces, String[] ids) {
+        BitSet bits = new BitSet();
+        for (String namespace : team.namespace_blacklist) {
+            BitSet items = namespaces.get(namespace);
+            if (items != null) {
+                bits.or(items);
+            }
+        }
+        for (String entry : team.item_blacklist) {
+            int rawId = catalog.rawId(entry);
+            if (rawId >= 0) {
+                bits.set(rawId);
+            }
+        }
+        for (String entry : team.tag_blacklist) {
+            for (int rawId : catalog.tag(entry)) {
+                bits.set(rawId);
+            }
+        }
+        for (String entry : team.pattern_blacklist) {
+            Pattern pattern = compilePattern(entry);
+            for (int rawId = 0; rawId < ids.length; rawId++) {
+                if (ids[rawId] != null && pattern.matcher(ids[rawId]).matches()) {
+                    bits.set(rawId);
+                }
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Checks an id the same way Minecraft does: an optional namespace of [a-z0-9_.-], then a path of [a-z0-9_.-/].
+     * @param id The id to check, without any leading '#'
+     * @return Whether the id is valid
+     */
+    public static boolean isValidId(String id) {
+        int colon = id.indexOf(':');
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            boolean valid = c == '_' || c == '-' || c == '.' || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || (c == '/' && i > colon)
+                    || i == colon;
+            if (!valid) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compiles an entry of {@link Config.TeamConfig#pattern_blacklist}. Entries prefixed with 'regex:' are regular
+     * expressions, everything else is a glob where '*' matches any run of characters and '?' any single one.
+     * @param pattern The entry to compile
+     * @return A pattern matching full item ids
+     * @throws java.util.regex.PatternSyntaxException If the entry is an invalid regular expression
+     */
+    public static Pattern compilePattern(String pattern) {
+        if (pattern.startsWith("regex:")) {
+            return Pattern.compile(pattern.substring("regex:".length()));
+        }
+
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : pattern.toCharArray()) {
+            if (c == '*' || c == '?') {
+                if (!literal.isEmpty()) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '*' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (!literal.isEmpty()) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(regex.toString());
+    }
+}
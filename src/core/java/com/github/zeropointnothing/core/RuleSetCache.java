@@ -0,0 +1,311 @@
+package com.github.zeropointnothing.core;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * A binary copy of a compiled {@link RuleSet}, so a restart with an unchanged config can skip parsing and compiling.
+ * <p>
+ * The file is keyed by a hash of the config file and a hash of the {@link ItemCatalog}. The catalog hash covers
+ * every item id in raw id order, plus the contents of the tags the config uses. If either has changed, for example
+ * because the config was edited or the modpack updated, the cache is ignored. Only the header is read until the
+ * config hash matches, and the file is closed before anything is parsed, so it can always be replaced by the next
+ * {@link #write}.
+ */
+public final class RuleSetCache {
+    private static final int MAGIC = 0x49424743; // 'IBGC'
+    private static final int FORMAT = 4;
+    private static final int HEADER = Integer.BYTES * 2 + Long.BYTES; // Magic, format and config hash
+
+    private RuleSetCache() {}
+
+    /**
+     * @param json The exact contents of the config file
+     * @return The hash the cache is keyed by
+     */
+    public static long hash(String json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is always available", e);
+        }
+    }
+
+    /**
+     * Reads a cached rule set. Predicates of data rules are compiled again through the catalog, everything else is
+     * read as is.
+     * @param path The cache file
+     * @param configHash The {@link #hash(String)} of the current config file
+     * @param catalog The items to check the cache against
+     * @return The rule set, or null if there is no cache or it doesn't match
+     * @throws IOException If the file exists but can not be read
+     */
+    public static RuleSet read(Path path, long configHash, ItemCatalog catalog) throws IOException {
+        if (Files.notExists(path)) {
+            return null;
+        }
+
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(channel, HEADER);
+            if (header.remaining() < HEADER
+                    || header.getInt() != MAGIC || header.getInt() != FORMAT || header.getLong() != configHash) {
+                return null;
+            }
+            long size = channel.size() - HEADER;
+            if (size > Integer.MAX_VALUE) {
+                return null;
+            }
+            buffer = readFully(channel, (int) Math.max(0, size));
+        }
+
+        try {
+            long catalogHash = buffer.getLong();
+            List<String> tags = readStrings(buffer);
+            if (catalogHash != catalogHash(catalog, tags)) {
+                return null;
+            }
+
+            long version = RuleSet.nextVersion();
+            boolean deleteOnDeny = buffer.get() != 0;
+            Settings settings = ConfigCodec.GSON.fromJson(readString(buffer), Settings.class);
+            Config.UnknownTeamFallback mode = Config.UnknownTeamFallback.values()[buffer.get()];
+
+            Map<String, DataPredicate> compiled = new HashMap<>();
+            int teamCount = readLength(buffer, 1);
+            Map<String, RuleSet.TeamRules> teams = new HashMap<>(teamCount * 2);
+            for (int i = 0; i < teamCount; i++) {
+                RuleSet.TeamRules rules = readTeam(buffer, version, catalog, compiled);
+                teams.put(rules.name, rules);
+            }
+            RuleSet.TeamRules global = buffer.get() != 0
+                    ? teams.get("global")
+                    : readTeam(buffer, version, catalog, compiled);
+
+            int playerCount = readLength(buffer, 1);
+            Map<String, RuleSet.PlayerRules> players = new HashMap<>(playerCount * 2);
+            for (int i = 0; i < playerCount; i++) {
+                players.put(readString(buffer), new RuleSet.PlayerRules(readBits(buffer), readBits(buffer)));
+            }
+
+            return new RuleSet(
+                    version, deleteOnDeny, settings.sweep, settings.containers, settings.audit, settings.sync, settings.vault,
+                    Map.copyOf(teams), global, mode, Map.copyOf(players), RuleSet.fallback(mode, global, catalog, version)
+            );
+        } catch (RuntimeException e) {
+            // Truncated or otherwise damaged (a bad length, settings that aren't JSON), compile from scratch and
+            // overwrite it. The cache can always be rebuilt, so it must never stop the server from starting.
+            return null;
+        }
+    }
+
+    /**
+     * Reads a length or count, making sure the rest of the buffer can hold that many elements before anything is
+     * allocated for them.
+     * @param elementSize The fewest bytes each element takes up
+     */
+    private static int readLength(ByteBuffer buffer, int elementSize) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining() / elementSize) {
+            throw new BufferUnderflowException();
+        }
+        return length;
+    }
+
+    /**
+     * @return A buffer holding the next {@code size} bytes of the channel, or fewer if it ends first
+     */
+    private static ByteBuffer readFully(FileChannel channel, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                break;
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Writes a rule set to the cache, replacing any older one.
+     * @param path The cache file
+     * @param configHash The {@link #hash(String)} of the config file the rules were compiled from
+     * @param config The config the rules were compiled from
+     * @param rules The compiled rules
+     * @param catalog The items the rules were compiled against
+     */
+    public static void write(Path path, long configHash, Config config, RuleSet rules, ItemCatalog catalog) throws IOException {
+        List<String> tags = usedTags(config);
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temp))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeLong(configHash);
+            out.writeLong(catalogHash(catalog, tags));
+            writeStrings(out, tags);
+
+            out.writeBoolean(rules.deleteOnDeny);
+            Settings settings = new Settings();
+            settings.sweep = rules.sweep;
+            settings.containers = rules.containers;
+            settings.audit = rules.audit;
+            settings.sync = rules.sync;
+            settings.vault = rules.vault;
+            writeString(out, ConfigCodec.GSON.toJson(settings));
+            out.writeByte(rules.fallbackMode.ordinal());
+
+            out.writeInt(rules.teams.size());
+            for (RuleSet.TeamRules team : rules.teams.values()) {
+                writeTeam(out, team);
+            }
+            boolean globalIsTeam = rules.teams.get("global") == rules.global;
+            out.writeBoolean(globalIsTeam);
+            if (!globalIsTeam) {
+                writeTeam(out, rules.global);
+            }
+
+            out.writeInt(rules.players.size());
+            for (Map.Entry<String, RuleSet.PlayerRules> entry : rules.players.entrySet()) {
+                writeString(out, entry.getKey());
+                writeBits(out, entry.getValue().allow());
+                writeBits(out, entry.getValue().deny());
+            }
+        }
+
+        try {
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static class Settings {
+        Config.SweepConfig sweep;
+        Config.ContainerConfig containers;
+        Config.AuditConfig audit;
+        Config.SyncConfig sync;
+        Config.VaultConfig vault;
+    }
+
+    private static List<String> usedTags(Config config) {
+        SortedSet<String> tags = new TreeSet<>();
+        for (Config.TeamConfig team : config.blacklist.teams) {
+            tags.addAll(team.tag_blacklist);
+            for (Config.NbtRule rule : team.nbt_blacklist) {
+                if (rule.item.startsWith("#")) {
+                    tags.add(rule.item);
+                }
+            }
+        }
+        for (Config.PlayerOverride override : config.players) {
+            for (String entry : override.allow) {
+                if (Config.EntryKind.of(entry) == Config.EntryKind.TAG) {
+                    tags.add(entry.substring(1));
+                }
+            }
+            for (String entry : override.deny) {
+                if (Config.EntryKind.of(entry) == Config.EntryKind.TAG) {
+                    tags.add(entry.substring(1));
+                }
+            }
+        }
+        return new ArrayList<>(tags);
+    }
+
+    private static long catalogHash(ItemCatalog catalog, List<String> tags) {
+        long hash = 1125899906842597L;
+        hash = 31 * hash + catalog.size();
+        hash = 31 * hash + catalog.empty();
+        for (int rawId = 0; rawId < catalog.size(); rawId++) {
+            hash = 31 * hash + Objects.hashCode(catalog.id(rawId));
+        }
+        for (String tag : tags) {
+            int[] members = catalog.tag(tag).clone();
+            Arrays.sort(members);
+            hash = 31 * hash + tag.hashCode();
+            hash = 31 * hash + Arrays.hashCode(members);
+        }
+        return hash;
+    }
+
+    private static void writeTeam(DataOutputStream out, RuleSet.TeamRules team) throws IOException {
+        writeString(out, team.name);
+        writeBits(out, team.denied());
+        out.writeInt(team.dataRules.size());
+        for (Map.Entry<Integer, List<String>> entry : team.dataRules.entrySet()) {
+            out.writeInt(entry.getKey());
+            writeStrings(out, entry.getValue());
+        }
+    }
+
+    private static RuleSet.TeamRules readTeam(
+            ByteBuffer buffer, long version, ItemCatalog catalog, Map<String, DataPredicate> compiled
+    ) {
+        String name = readString(buffer);
+        BitSet items = readBits(buffer);
+
+        SortedMap<Integer, List<String>> dataRules = new TreeMap<>();
+        int count = readLength(buffer, Integer.BYTES);
+        for (int i = 0; i < count; i++) {
+            int rawId = buffer.getInt();
+            List<String> rules = readStrings(buffer);
+            for (String nbt : rules) {
+                compiled.computeIfAbsent(nbt, catalog::data);
+            }
+            dataRules.put(rawId, rules);
+        }
+        return new RuleSet.TeamRules(name, version, items, dataRules, compiled);
+    }
+
+    private static void writeBits(DataOutputStream out, BitSet bits) throws IOException {
+        long[] words = bits.toLongArray();
+        out.writeInt(words.length);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    private static BitSet readBits(ByteBuffer buffer) {
+        long[] words = new long[readLength(buffer, Long.BYTES)];
+        buffer.asLongBuffer().get(words);
+        buffer.position(buffer.position() + words.length * Long.BYTES);
+        return BitSet.valueOf(words);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[readLength(buffer, 1)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static List<String> readStrings(ByteBuffer buffer) {
+        int count = readLength(buffer, Integer.BYTES);
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readString(buffer));
+        }
+        return values;
+    }
+}
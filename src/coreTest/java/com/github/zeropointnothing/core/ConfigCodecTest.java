@@ -0,0 +1,116 @@
+package com.github.zeropointnothing.core;
+
+import com.google.gson.JsonParseException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigCodecTest {
+    private static final String MINIMAL = """
+            {
+              "delete_on_deny": true,
+              "blacklist": {"teams": [
+                {"name": "global", "enabled": true, "namespace_blacklist": [], "item_blacklist": ["minecraft:stone"]}
+              ]}
+            }
+            """;
+
+    /**
+     * @param team The JSON of a single team
+     * @return A config holding only that team
+     */
+    private static String withTeam(String team) {
+        return "{\"delete_on_deny\": false, \"blacklist\": {\"teams\": [" + team + "]}}";
+    }
+
+    private static String withPlayer(String player) {
+        return "{\"delete_on_deny\": false, \"blacklist\": {\"teams\": []}, \"players\": [" + player + "]}";
+    }
+
+    @Test
+    void missingSectionsGetDefaults() {
+        Config config = ConfigCodec.read(MINIMAL);
+
+        assertTrue(config.delete_on_deny);
+        assertNotNull(config.sweep);
+        assertNotNull(config.containers);
+        assertNotNull(config.audit);
+        assertNotNull(config.sync);
+        assertNotNull(config.vault);
+        assertEquals(List.of(), config.players);
+
+        Config.TeamConfig global = config.blacklist.getTeam("global");
+        assertEquals(List.of("minecraft:stone"), global.item_blacklist);
+        assertEquals(List.of(), global.tag_blacklist);
+        assertEquals(List.of(), global.pattern_blacklist);
+        assertEquals(List.of(), global.nbt_blacklist);
+    }
+
+    @Test
+    void writtenConfigsReadBack() {
+        Config config = ConfigCodec.read(MINIMAL);
+        config.blacklist.getTeam("global").pattern_blacklist.add("create:*");
+
+        Config read = ConfigCodec.read(ConfigCodec.write(config));
+        assertEquals(List.of("create:*"), read.blacklist.getTeam("global").pattern_blacklist);
+        assertEquals(config.sweep.interval_ticks, read.sweep.interval_ticks);
+    }
+
+    @Test
+    void requiredValuesMustBePresent() {
+        assertThrows(JsonParseException.class, () -> ConfigCodec.read(""));
+        assertThrows(JsonParseException.class, () -> ConfigCodec.read("{\"blacklist\": {\"teams\": []}}"));
+        assertThrows(JsonParseException.class, () -> ConfigCodec.read("{\"delete_on_deny\": false}"));
+        assertThrows(JsonParseException.class, () -> ConfigCodec.read(withTeam(
+                "{\"name\": \"red\", \"enabled\": true, \"namespace_blacklist\": []}"
+        )));
+    }
+
+    @Test
+    void malformedSectionsAreRejected() {
+        assertThrows(JsonParseException.class, () -> ConfigCodec.read(
+                "{\"delete_on_deny\": false, \"blacklist\": {\"teams\": []}, \"sweep\": {\"interval_ticks\": 0}}"
+        ));
+        assertThrows(JsonParseException.class, () -> ConfigCodec.read(
+                "{\"delete_on_deny\": false, \"blacklist\": {\"teams\": []}, \"sync\": {\"backend\": \"carrier_pigeon\"}}"
+        ));
+        assertThrows(JsonParseException.class, () -> ConfigCodec.read(
+                "{\"delete_on_deny\": false, \"blacklist\": {\"teams\": []}, \"vault\": {\"save_interval_ticks\": 0}}"
+        ));
+    }
+
+    @Test
+    void invalidRulesAreRejected() {
+        String team = "{\"name\": \"red\", \"enabled\": true, \"namespace_blacklist\": [], \"item_blacklist\": [], %s}";
+
+        assertThrows(JsonParseException.class, () -> ConfigCodec.read(withTeam(team.formatted(
+                "\"tag_blacklist\": [\"#Not A Tag\"]"
+        ))));
+        assertThrows(JsonParseException.class, () -> ConfigCodec.read(withTeam(team.formatted(
+                "\"pattern_blacklist\": [\"regex:(\"]"
+        ))));
+        assertThrows(JsonParseException.class, () -> ConfigCodec.read(withTeam(team.formatted(
+                "\"nbt_blacklist\": [{\"item\": \"minecraft:stone\"}]"
+        ))));
+        assertDoesNotThrow(() -> ConfigCodec.read(withTeam(team.formatted(
+                "\"tag_blacklist\": [\"#c:ores\"], \"pattern_blacklist\": [\"create:*_casing\"]"
+        ))));
+    }
+
+    @Test
+    void playerOverridesAreValidated() {
+        Config config = ConfigCodec.read(withPlayer("{\"player\": \"Steve\", \"allow\": [\"@create\"]}"));
+        assertEquals(List.of("@create"), config.getPlayer("steve").allow);
+        assertEquals(List.of(), config.getPlayer("steve").deny);
+
+        assertThrows(JsonParseException.class, () -> ConfigCodec.read(withPlayer("{\"allow\": []}")));
+        assertThrows(JsonParseException.class, () -> ConfigCodec.read(withPlayer(
+                "{\"player\": \"Steve\", \"deny\": [\"Not An Item\"]}"
+        )));
+        assertThrows(JsonParseException.class, () -> ConfigCodec.read(withPlayer(
+                "{\"player\": \"Steve\", \"deny\": [\"regex:[\"]}"
+        )));
+    }
+}
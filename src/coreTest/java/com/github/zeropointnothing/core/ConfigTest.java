@@ -0,0 +1,52 @@
+package com.github.zeropointnothing.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigTest {
+    @Test
+    void entryKindsFollowTheListFileSyntax() {
+        assertEquals(Config.EntryKind.ITEM, Config.EntryKind.of("minecraft:stone"));
+        assertEquals(Config.EntryKind.NAMESPACE, Config.EntryKind.of("@create"));
+        assertEquals(Config.EntryKind.TAG, Config.EntryKind.of("#c:ores"));
+        assertEquals(Config.EntryKind.PATTERN, Config.EntryKind.of("create:*_casing"));
+        assertEquals(Config.EntryKind.PATTERN, Config.EntryKind.of("minecraft:?ool"));
+        assertEquals(Config.EntryKind.PATTERN, Config.EntryKind.of("regex:minecraft:.+"));
+    }
+
+    @Test
+    void entryValuesDropTheirPrefix() {
+        assertEquals("create", Config.EntryKind.NAMESPACE.value("@create"));
+        assertEquals("c:ores", Config.EntryKind.TAG.value("#c:ores"));
+        assertEquals("minecraft:stone", Config.EntryKind.ITEM.value("minecraft:stone"));
+        // Patterns keep their 'regex:' prefix, it is part of how they are stored.
+        assertEquals("regex:minecraft:.+", Config.EntryKind.PATTERN.value("regex:minecraft:.+"));
+    }
+
+    @Test
+    void playersAreLookedUpIgnoringCase() {
+        Config config = new Config(new Config.TeamList(new ArrayList<>()), false);
+        config.players.add(new Config.PlayerOverride("Steve", new ArrayList<>(), new ArrayList<>()));
+
+        assertNotNull(config.getPlayer("steve"));
+        assertNull(config.getPlayer("alex"));
+    }
+
+    @Test
+    void copiesShareNoLists() {
+        Config config = new Config(new Config.TeamList(new ArrayList<>()), false);
+        config.blacklist.addTeam("global", new ArrayList<>(), new ArrayList<>(List.of("minecraft:stone")), true);
+        config.players.add(new Config.PlayerOverride("Steve", new ArrayList<>(), new ArrayList<>()));
+
+        Config copy = config.copy();
+        copy.blacklist.getTeam("global").item_blacklist.add("minecraft:dirt");
+        copy.getPlayer("Steve").deny.add("minecraft:dirt");
+
+        assertEquals(List.of("minecraft:stone"), config.blacklist.getTeam("global").item_blacklist);
+        assertEquals(List.of(), config.getPlayer("Steve").deny);
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.zeropointnothing.core;
+
+import java.util.*;
+
+/**
+ * An {@link ItemCatalog} over a fixed list of ids, so rules can be compiled without the item registry.
+ * <p>
+ * Stacks are plain strings of item data. An nbt rule matches a stack if the stack contains the rule's text, and a
+ * rule that starts with '!' can't be parsed.
+ */
+final class FakeCatalog implements ItemCatalog {
+    static final String AIR = "minecraft:air";
+
+    private final List<String> ids = new ArrayList<>();
+    private final Map<String, Integer> rawIds = new HashMap<>();
+    private final Map<String, int[]> tags = new HashMap<>();
+
+    /**
+     * @param ids The items, numbered in order after 'minecraft:air', which is always raw id 0
+     */
+    FakeCatalog(String... ids) {
+        add(AIR);
+        for (String id : ids) {
+            add(id);
+        }
+    }
+
+    private void add(String id) {
+        rawIds.put(id, ids.size());
+        ids.add(id);
+    }
+
+    /**
+     * Defines a tag. Returns this catalog, so tags can be chained onto the constructor.
+     */
+    FakeCatalog tag(String tag, String... items) {
+        tags.put(tag, Arrays.stream(items).mapToInt(this::rawId).toArray());
+        return this;
+    }
+
+    @Override
+    public int size() {
+        return ids.size();
+    }
+
+    @Override
+    public String id(int rawId) {
+        return ids.get(rawId);
+    }
+
+    @Override
+    public int rawId(String id) {
+        return rawIds.getOrDefault(id, -1);
+    }
+
+    @Override
+    public int[] tag(String tag) {
+        return tags.getOrDefault(tag.startsWith("#") ? tag.substring(1) : tag, new int[0]);
+    }
+
+    @Override
+    public DataPredicate data(String nbt) {
+        if (nbt.startsWith("!")) {
+            throw new IllegalArgumentException("Unparseable data " + nbt);
+        }
+        return stack -> ((String) stack).contains(nbt);
+    }
+
+    @Override
+    public int empty() {
+        return 0;
+    }
+}
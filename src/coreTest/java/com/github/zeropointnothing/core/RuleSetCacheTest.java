@@ -0,0 +1,117 @@
+package com.github.zeropointnothing.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleSetCacheTest {
+    private static final String JSON = "{\"delete_on_deny\": true}";
+
+    @TempDir
+    Path dir;
+
+    private static Config config() {
+        Config.TeamConfig global = new Config.TeamConfig(
+                "global", new ArrayList<>(), new ArrayList<>(List.of("minecraft:stone")), true
+        );
+        global.tag_blacklist.add("c:gems");
+        global.nbt_blacklist.add(new Config.NbtRule("minecraft:diamond_sword", "sharpness"));
+        Config config = ConfigCodec.validate(new Config(new Config.TeamList(new ArrayList<>(List.of(global))), true));
+        config.players.add(new Config.PlayerOverride(
+                "Steve", new ArrayList<>(List.of("minecraft:stone")), new ArrayList<>()
+        ));
+        return config;
+    }
+
+    private static FakeCatalog catalog() {
+        return new FakeCatalog("minecraft:stone", "minecraft:diamond", "minecraft:diamond_sword")
+                .tag("c:gems", "minecraft:diamond");
+    }
+
+    @Test
+    void rulesReadBackAsWritten() throws IOException {
+        Path path = dir.resolve("rules.bin");
+        FakeCatalog catalog = catalog();
+        Config config = config();
+        RuleSet written = RuleSet.compile(config, catalog);
+        RuleSetCache.write(path, RuleSetCache.hash(JSON), config, written, catalog);
+
+        RuleSet read = RuleSetCache.read(path, RuleSetCache.hash(JSON), catalog);
+        assertNotNull(read);
+        assertTrue(read.version > written.version);
+        assertTrue(read.deleteOnDeny);
+        assertEquals(written.global().fingerprint, read.global().fingerprint);
+        assertEquals(written.global().denied(), read.global().denied());
+        assertTrue(read.global().matchesData(catalog.rawId("minecraft:diamond_sword"), "{sharpness:1}"));
+        assertFalse(read.resolve("global", "uuid", "steve").isBlacklisted(catalog.rawId("minecraft:stone")));
+    }
+
+    @Test
+    void changedConfigOrCatalogMissesTheCache() throws IOException {
+        Path path = dir.resolve("rules.bin");
+        Config config = config();
+        RuleSetCache.write(path, RuleSetCache.hash(JSON), config, RuleSet.compile(config, catalog()), catalog());
+
+        assertNull(RuleSetCache.read(path, RuleSetCache.hash(JSON + " "), catalog()));
+        assertNull(RuleSetCache.read(path, RuleSetCache.hash(JSON), new FakeCatalog(
+                "minecraft:stone", "minecraft:diamond", "minecraft:diamond_sword", "create:wrench"
+        ).tag("c:gems", "minecraft:diamond")));
+        assertNull(RuleSetCache.read(path, RuleSetCache.hash(JSON), new FakeCatalog(
+                "minecraft:stone", "minecraft:diamond", "minecraft:diamond_sword"
+        ).tag("c:gems", "minecraft:diamond", "minecraft:stone")));
+        assertNull(RuleSetCache.read(dir.resolve("missing.bin"), RuleSetCache.hash(JSON), catalog()));
+    }
+
+    @Test
+    void truncatedCachesAreIgnored() throws IOException {
+        Path path = dir.resolve("rules.bin");
+        Config config = config();
+        RuleSetCache.write(path, RuleSetCache.hash(JSON), config, RuleSet.compile(config, catalog()), catalog());
+        byte[] bytes = Files.readAllBytes(path);
+
+        Files.write(path, Arrays.copyOf(bytes, 10));
+        assertNull(RuleSetCache.read(path, RuleSetCache.hash(JSON), catalog()));
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+        assertNull(RuleSetCache.read(path, RuleSetCache.hash(JSON), catalog()));
+    }
+
+    @Test
+    void damagedCachesAreIgnored() throws IOException {
+        Path path = dir.resolve("rules.bin");
+        Config config = config();
+        RuleSetCache.write(path, RuleSetCache.hash(JSON), config, RuleSet.compile(config, catalog()), catalog());
+        byte[] bytes = Files.readAllBytes(path);
+
+        // Overwriting any byte past the header, lengths included, must at worst miss the cache.
+        for (int i = 16; i < bytes.length; i++) {
+            for (byte value : new byte[] {(byte) 0xFF, 0x7F, '{'}) {
+                byte[] damaged = bytes.clone();
+                damaged[i] = value;
+                Files.write(path, damaged);
+                assertDoesNotThrow(() -> RuleSetCache.read(path, RuleSetCache.hash(JSON), catalog()), "Byte " + i);
+            }
+        }
+    }
+
+    @Test
+    void aNewCacheReplacesTheOld() throws IOException {
+        Path path = dir.resolve("rules.bin");
+        Config config = config();
+        RuleSetCache.write(path, RuleSetCache.hash(JSON), config, RuleSet.compile(config, catalog()), catalog());
+        assertNotNull(RuleSetCache.read(path, RuleSetCache.hash(JSON), catalog()));
+
+        config.blacklist.getTeam("global").item_blacklist.clear();
+        RuleSetCache.write(path, RuleSetCache.hash(JSON + " "), config, RuleSet.compile(config, catalog()), catalog());
+        RuleSet read = RuleSetCache.read(path, RuleSetCache.hash(JSON + " "), catalog());
+        assertNotNull(read);
+        assertFalse(read.global().isBlacklisted(catalog().rawId("minecraft:stone")));
+    }
+}
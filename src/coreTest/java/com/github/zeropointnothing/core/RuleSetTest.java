@@ -0,0 +1,216 @@
+package com.github.zeropointnothing.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleSetTest {
+    private static final String PLAYER_UUID = "0f6a8a3e-5d6b-4a8e-9c1e-2b7f3d4c5e6f";
+
+    private final FakeCatalog catalog = new FakeCatalog(
+            "minecraft:stone", "minecraft:dirt", "minecraft:diamond", "minecraft:diamond_sword",
+            "create:brass_casing", "create:andesite_casing", "create:wrench", "mekanism:tnt"
+    ).tag("c:gems", "minecraft:diamond");
+
+    private static Config config(Config.TeamConfig... teams) {
+        return ConfigCodec.validate(new Config(new Config.TeamList(new ArrayList<>(List.of(teams))), false));
+    }
+
+    private static Config.TeamConfig team(String name, boolean enabled, String... items) {
+        return new Config.TeamConfig(name, new ArrayList<>(), new ArrayList<>(List.of(items)), enabled);
+    }
+
+    private boolean denies(RuleSet.TeamRules rules, String id) {
+        return rules.isBlacklisted(catalog.rawId(id));
+    }
+
+    @Test
+    void teamsAreMergedWithGlobal() {
+        RuleSet rules = RuleSet.compile(config(
+                team("global", true, "minecraft:stone"),
+                team("red", true, "minecraft:dirt")
+        ), catalog);
+
+        RuleSet.TeamRules red = rules.getTeam("red");
+        assertTrue(denies(red, "minecraft:stone"));
+        assertTrue(denies(red, "minecraft:dirt"));
+        assertFalse(denies(rules.getTeam("global"), "minecraft:dirt"));
+    }
+
+    @Test
+    void disabledTeamsOnlyGetGlobal() {
+        RuleSet rules = RuleSet.compile(config(
+                team("global", true, "minecraft:stone"),
+                team("red", false, "minecraft:dirt")
+        ), catalog);
+
+        RuleSet.TeamRules red = rules.getTeam("red");
+        assertTrue(denies(red, "minecraft:stone"));
+        assertFalse(denies(red, "minecraft:dirt"));
+    }
+
+    @Test
+    void disabledGlobalAppliesToNoTeam() {
+        RuleSet rules = RuleSet.compile(config(
+                team("global", false, "minecraft:stone"),
+                team("red", true, "minecraft:dirt")
+        ), catalog);
+
+        assertFalse(denies(rules.getTeam("red"), "minecraft:stone"));
+        assertTrue(rules.getTeam("global").empty);
+    }
+
+    @Test
+    void namespacesTagsAndPatternsResolveToItems() {
+        Config.TeamConfig red = team("red", true);
+        red.namespace_blacklist.add("mekanism");
+        red.tag_blacklist.add("c:gems");
+        red.pattern_blacklist.add("create:*_casing");
+        red.pattern_blacklist.add("regex:minecraft:.*_sword");
+        RuleSet.TeamRules rules = RuleSet.compile(config(red), catalog).getTeam("red");
+
+        assertTrue(denies(rules, "mekanism:tnt"));
+        assertTrue(denies(rules, "minecraft:diamond"));
+        assertTrue(denies(rules, "create:brass_casing"));
+        assertTrue(denies(rules, "create:andesite_casing"));
+        assertTrue(denies(rules, "minecraft:diamond_sword"));
+        assertFalse(denies(rules, "create:wrench"));
+        assertFalse(denies(rules, "minecraft:stone"));
+    }
+
+    @Test
+    void emptyItemIsNeverDenied() {
+        Config.TeamConfig red = team("red", true);
+        red.namespace_blacklist.add("minecraft");
+        RuleSet.TeamRules rules = RuleSet.compile(config(red), catalog).getTeam("red");
+
+        assertTrue(denies(rules, "minecraft:stone"));
+        assertFalse(rules.isBlacklisted(catalog.empty()));
+    }
+
+    @Test
+    void unknownItemsAreIgnored() {
+        RuleSet.TeamRules rules = RuleSet.compile(config(team("red", true, "gone:item")), catalog).getTeam("red");
+
+        assertTrue(rules.empty);
+    }
+
+    @Test
+    void unknownTeamsUseTheFallback() {
+        Config config = config(team("global", true, "minecraft:stone"));
+
+        // A missing mode means GLOBAL.
+        RuleSet rules = RuleSet.compile(config, catalog);
+        assertSame(rules.global(), rules.resolve("blue"));
+
+        config.unknown_team_fallback = Config.UnknownTeamFallback.GLOBAL;
+        rules = RuleSet.compile(config, catalog);
+        assertSame(rules.global(), rules.resolve("blue"));
+
+        config.unknown_team_fallback = Config.UnknownTeamFallback.ALLOW;
+        assertTrue(RuleSet.compile(config, catalog).resolve("blue").empty);
+
+        config.unknown_team_fallback = Config.UnknownTeamFallback.DENY;
+        RuleSet.TeamRules deny = RuleSet.compile(config, catalog).resolve("blue");
+        assertTrue(denies(deny, "create:wrench"));
+        assertFalse(deny.isBlacklisted(catalog.empty()));
+    }
+
+    @Test
+    void getTeamRejectsUnknownTeams() {
+        RuleSet rules = RuleSet.compile(config(team("global", true)), catalog);
+
+        assertThrows(Config.NoSuchTeamException.class, () -> rules.getTeam("blue"));
+    }
+
+    @Test
+    void overridesAllowAndDenyOnTopOfTheTeam() {
+        Config config = config(team("global", true, "minecraft:stone", "minecraft:dirt"));
+        config.players.add(new Config.PlayerOverride(
+                "Steve", new ArrayList<>(List.of("minecraft:stone")), new ArrayList<>(List.of("@create"))
+        ));
+        RuleSet rules = RuleSet.compile(config, catalog);
+
+        RuleSet.TeamRules steve = rules.resolve("global", PLAYER_UUID, "steve");
+        assertFalse(denies(steve, "minecraft:stone"));
+        assertTrue(denies(steve, "minecraft:dirt"));
+        assertTrue(denies(steve, "create:wrench"));
+        assertSame(steve, rules.resolve("global", PLAYER_UUID, "Steve"));
+
+        assertSame(rules.global(), rules.resolve("global", PLAYER_UUID, "Alex"));
+    }
+
+    @Test
+    void overridesByUuidWinOverName() {
+        Config config = config(team("global", true, "minecraft:stone"));
+        config.players.add(new Config.PlayerOverride("Steve", new ArrayList<>(List.of("minecraft:stone")), new ArrayList<>()));
+        config.players.add(new Config.PlayerOverride(PLAYER_UUID, new ArrayList<>(), new ArrayList<>(List.of("minecraft:dirt"))));
+        RuleSet rules = RuleSet.compile(config, catalog);
+
+        RuleSet.TeamRules steve = rules.resolve("global", PLAYER_UUID, "Steve");
+        assertTrue(denies(steve, "minecraft:stone"));
+        assertTrue(denies(steve, "minecraft:dirt"));
+    }
+
+    @Test
+    void dataRulesOnlyApplyToItemsNotDeniedOutright() {
+        Config.TeamConfig global = team("global", true, "minecraft:stone");
+        global.nbt_blacklist.add(new Config.NbtRule("minecraft:diamond_sword", "sharpness"));
+        global.nbt_blacklist.add(new Config.NbtRule("minecraft:stone", "anything"));
+        Config.TeamConfig red = team("red", true, "minecraft:diamond_sword");
+        RuleSet rules = RuleSet.compile(config(global, red), catalog);
+
+        RuleSet.TeamRules globalRules = rules.getTeam("global");
+        int sword = catalog.rawId("minecraft:diamond_sword");
+        assertFalse(globalRules.isBlacklisted(sword));
+        assertTrue(globalRules.hasDataRules(sword));
+        assertTrue(globalRules.matchesData(sword, "{sharpness:5}"));
+        assertFalse(globalRules.matchesData(sword, "{unbreaking:3}"));
+        assertFalse(globalRules.hasDataRules(catalog.rawId("minecraft:stone")));
+
+        RuleSet.TeamRules redRules = rules.getTeam("red");
+        assertTrue(redRules.isBlacklisted(sword));
+        assertFalse(redRules.hasDataRules(sword));
+    }
+
+    @Test
+    void allowingAnItemDropsItsDataRules() {
+        Config.TeamConfig global = team("global", true);
+        global.nbt_blacklist.add(new Config.NbtRule("minecraft:diamond_sword", "sharpness"));
+        Config config = config(global);
+        config.players.add(new Config.PlayerOverride(
+                "Steve", new ArrayList<>(List.of("minecraft:diamond_sword")), new ArrayList<>()
+        ));
+
+        RuleSet.TeamRules steve = RuleSet.compile(config, catalog).resolve("global", PLAYER_UUID, "Steve");
+        assertFalse(steve.hasDataRules(catalog.rawId("minecraft:diamond_sword")));
+        assertTrue(steve.empty);
+    }
+
+    @Test
+    void invalidDataIsReportedWithItsTeam() {
+        Config.TeamConfig red = team("red", true);
+        red.nbt_blacklist.add(new Config.NbtRule("minecraft:diamond_sword", "!broken"));
+
+        IllegalArgumentException e = assertThrows(
+                IllegalArgumentException.class, () -> RuleSet.compile(config(red), catalog)
+        );
+        assertTrue(e.getMessage().contains("'red'"));
+    }
+
+    @Test
+    void fingerprintsDependOnContentNotVersion() {
+        Config config = config(team("global", true, "minecraft:stone"));
+        RuleSet first = RuleSet.compile(config, catalog);
+        RuleSet second = RuleSet.compile(config, catalog);
+
+        assertTrue(second.version > first.version);
+        assertEquals(first.global().fingerprint, second.global().fingerprint);
+
+        config.blacklist.teams.get(0).item_blacklist.add("minecraft:dirt");
+        assertNotEquals(first.global().fingerprint, RuleSet.compile(config, catalog).global().fingerprint);
+    }
+}
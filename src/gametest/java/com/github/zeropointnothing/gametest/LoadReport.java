@@ -0,0 +1,66 @@
+package com.github.zeropointnothing.gametest;
+
+import com.github.zeropointnothing.Metrics;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * The results of a load test: the scenario, MSPT percentiles and the cost of every enforcement hook (see
+ * {@link Metrics}). Written as JSON, so runs can be diffed against each other.
+ */
+final class LoadReport {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    private final JsonObject json = new JsonObject();
+
+    LoadReport(Scenario scenario, long[] tickNanos) {
+        json.add("scenario", GSON.toJsonTree(scenario));
+
+        long[] sorted = tickNanos.clone();
+        Arrays.sort(sorted);
+        JsonObject mspt = new JsonObject();
+        mspt.addProperty("ticks", sorted.length);
+        mspt.addProperty("mean", sorted.length == 0 ? 0 : Arrays.stream(sorted).average().orElse(0) / 1e6);
+        mspt.addProperty("p50", percentile(sorted, 0.50));
+        mspt.addProperty("p95", percentile(sorted, 0.95));
+        mspt.addProperty("p99", percentile(sorted, 0.99));
+        mspt.addProperty("max", percentile(sorted, 1.0));
+        json.add("mspt", mspt);
+
+        JsonObject hooks = new JsonObject();
+        for (Metrics.Hook hook : Metrics.Hook.values()) {
+            Metrics.Probe probe = hook.probe;
+            JsonObject entry = new JsonObject();
+            entry.addProperty("calls", probe.getCalls());
+            entry.addProperty("denies", probe.getDenies());
+            entry.addProperty("mean_micros", probe.getMeanMicros());
+            entry.addProperty("p50_micros", probe.getP50Micros());
+            entry.addProperty("p99_micros", probe.getP99Micros());
+            entry.addProperty("max_micros", probe.getMaxMicros());
+            hooks.add(hook.id, entry);
+        }
+        json.add("hooks", hooks);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(sorted.length * percentile) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+
+    JsonObject mspt() {
+        return json.getAsJsonObject("mspt");
+    }
+
+    void write(Path path) throws IOException {
+        Files.writeString(path, GSON.toJson(json));
+    }
+}
@@ -0,0 +1,187 @@
+package com.github.zeropointnothing.gametest;
+
+import com.github.zeropointnothing.BlacklistIndex;
+import com.github.zeropointnothing.ConfigLoader;
+import com.github.zeropointnothing.Metrics;
+import com.github.zeropointnothing.core.Config;
+import com.github.zeropointnothing.core.RuleSet;
+import com.mojang.authlib.GameProfile;
+import net.fabricmc.fabric.api.entity.FakePlayer;
+import net.fabricmc.fabric.api.event.player.*;
+import net.fabricmc.fabric.api.gametest.v1.FabricGameTest;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityType;
+import net.minecraft.entity.ItemEntity;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.registry.Registries;
+import net.minecraft.scoreboard.Scoreboard;
+import net.minecraft.scoreboard.Team;
+import net.minecraft.screen.ScreenHandler;
+import net.minecraft.screen.slot.SlotActionType;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.test.GameTest;
+import net.minecraft.test.GameTestException;
+import net.minecraft.test.TestContext;
+import net.minecraft.util.Hand;
+import net.minecraft.util.hit.BlockHitResult;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.math.Vec3d;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Drives every enforcement hook with a crowd of fake players and reports what it costs. See {@link Scenario} for the
+ * knobs. Run with {@code ./gradlew runGametest}; the report is written to build/gametest/itemsbegone-loadtest.json.
+ * <p>
+ * Fake players have no connection, so use and attack actions invoke the Fabric events directly, the same way the
+ * network handler would. Slot clicks, pickups and inventory writes go through the real vanilla code and mixins.
+ */
+public class LoadTest implements FabricGameTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger("itemsbegone-loadtest");
+    private static final int TICK_LIMIT = 24000;
+
+    private enum Action { SLOT_CLICK, PICKUP, USE_ITEM, USE_BLOCK, ATTACK_BLOCK, USE_ENTITY, ATTACK_ENTITY }
+
+    private static final Action[] ACTIONS = Action.values();
+    private static final SlotActionType[] SLOT_ACTIONS = SlotActionType.values();
+
+    private record Bot(FakePlayer player, List<Item> allowed, List<Item> denied) {}
+
+    @GameTest(templateName = EMPTY_STRUCTURE, tickLimit = TICK_LIMIT)
+    public void enforcementLoad(TestContext context) {
+        Scenario scenario = Scenario.fromProperties();
+        if (scenario.ticks() >= TICK_LIMIT) {
+            throw new GameTestException("A scenario can run for at most " + (TICK_LIMIT - 1) + " ticks!");
+        }
+
+        Config config;
+        try {
+            config = scenario.config();
+        } catch (IOException e) {
+            throw new GameTestException("Could not read blacklist '" + scenario.blacklist() + "': " + e.getMessage());
+        }
+        ConfigLoader.publish(config, BlacklistIndex.compile(config));
+
+        ServerWorld world = context.getWorld();
+        BlockPos origin = context.getAbsolutePos(new BlockPos(1, 1, 1));
+        Random random = new Random(scenario.seed());
+        List<Bot> bots = spawnBots(scenario, world, origin, random);
+        Entity target = context.spawnEntity(EntityType.ARMOR_STAND, 2, 1, 2);
+
+        Metrics.reset();
+        TickRecorder.start(scenario.ticks());
+        context.runAtEveryTick(() -> {
+            for (Bot bot : bots) {
+                for (int i = 0; i < scenario.actionsPerTick(); i++) {
+                    act(bot, scenario, world, origin, target, random);
+                }
+            }
+        });
+
+        context.waitAndRun(scenario.ticks(), () -> {
+            LoadReport report = new LoadReport(scenario, TickRecorder.stop());
+            Path path = FabricLoader.getInstance().getGameDir().resolve("itemsbegone-loadtest.json");
+            try {
+                report.write(path);
+            } catch (IOException e) {
+                throw new GameTestException("Could not write the report: " + e.getMessage());
+            }
+            LOGGER.info("Load test finished ({}), MSPT: {}", scenario, report.mspt());
+            LOGGER.info("\n{}", Metrics.summary());
+            context.complete();
+        });
+    }
+
+    private static List<Bot> spawnBots(Scenario scenario, ServerWorld world, BlockPos origin, Random random) {
+        List<Item> items = new ArrayList<>();
+        for (Item item : Registries.ITEM) {
+            if (item != Items.AIR) {
+                items.add(item);
+            }
+        }
+
+        Scoreboard scoreboard = world.getScoreboard();
+        RuleSet index = BlacklistIndex.current();
+        List<Bot> bots = new ArrayList<>();
+        for (int i = 0; i < scenario.players(); i++) {
+            String name = "loadtest_bot_" + i;
+            FakePlayer player = FakePlayer.get(world, new GameProfile(
+                    UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8)), name
+            ));
+            player.refreshPositionAndAngles(origin, 0, 0);
+
+            String teamName = Scenario.teamName(i % Math.max(scenario.teams(), 1));
+            Team team = scoreboard.getTeam(teamName);
+            if (team == null) {
+                team = scoreboard.addTeam(teamName);
+            }
+            scoreboard.addPlayerToTeam(name, team);
+
+            RuleSet.TeamRules rules = index.resolve(teamName);
+            List<Item> allowed = new ArrayList<>();
+            List<Item> denied = new ArrayList<>();
+            for (Item item : items) {
+                (BlacklistIndex.isBlacklisted(rules, item.getDefaultStack()) ? denied : allowed).add(item);
+            }
+            Bot bot = new Bot(player, allowed, denied);
+            for (int slot = 0; slot < player.getInventory().size(); slot++) {
+                player.getInventory().setStack(slot, randomStack(bot, scenario, random));
+            }
+            bots.add(bot);
+        }
+        return bots;
+    }
+
+    private static ItemStack randomStack(Bot bot, Scenario scenario, Random random) {
+        List<Item> pool = !bot.denied().isEmpty() && random.nextDouble() < scenario.deniedFraction()
+                ? bot.denied()
+                : bot.allowed();
+        Item item = pool.get(random.nextInt(pool.size()));
+        return new ItemStack(item, 1 + random.nextInt(item.getMaxCount()));
+    }
+
+    private static void act(Bot bot, Scenario scenario, ServerWorld world, BlockPos origin, Entity target, Random random) {
+        FakePlayer player = bot.player();
+        // Keep the inventory churning, so there is always something new to check.
+        player.getInventory().setStack(random.nextInt(player.getInventory().size()), randomStack(bot, scenario, random));
+        player.getInventory().selectedSlot = random.nextInt(9);
+        Hand hand = random.nextInt(4) == 0 ? Hand.OFF_HAND : Hand.MAIN_HAND;
+
+        switch (ACTIONS[random.nextInt(ACTIONS.length)]) {
+            case SLOT_CLICK -> {
+                ScreenHandler handler = player.currentScreenHandler;
+                SlotActionType type = SLOT_ACTIONS[random.nextInt(SLOT_ACTIONS.length)];
+                int button = switch (type) {
+                    case SWAP -> random.nextInt(9);
+                    case QUICK_CRAFT -> ScreenHandler.packQuickCraftData(random.nextInt(3), random.nextInt(2));
+                    default -> random.nextInt(2);
+                };
+                handler.onSlotClick(random.nextInt(handler.slots.size()), button, type, player);
+            }
+            case PICKUP -> {
+                ItemEntity item = new ItemEntity(
+                        world, player.getX(), player.getY(), player.getZ(), randomStack(bot, scenario, random)
+                );
+                item.setPickupDelay(0);
+                item.onPlayerCollision(player);
+                item.discard();
+            }
+            case USE_ITEM -> UseItemCallback.EVENT.invoker().interact(player, world, hand);
+            case USE_BLOCK -> UseBlockCallback.EVENT.invoker().interact(
+                    player, world, hand, new BlockHitResult(Vec3d.ofCenter(origin), Direction.UP, origin, false)
+            );
+            case ATTACK_BLOCK -> AttackBlockCallback.EVENT.invoker().interact(player, world, hand, origin, Direction.UP);
+            case USE_ENTITY -> UseEntityCallback.EVENT.invoker().interact(player, world, hand, target, null);
+            case ATTACK_ENTITY -> AttackEntityCallback.EVENT.invoker().interact(player, world, hand, target, null);
+        }
+    }
+}
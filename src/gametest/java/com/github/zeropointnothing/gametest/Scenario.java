@@ -0,0 +1,69 @@
+package com.github.zeropointnothing.gametest;
+
+import com.github.zeropointnothing.core.Config;
+import com.github.zeropointnothing.core.ConfigCodec;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The parameters of a load test run, read from {@code itemsbegone.loadtest.*} system properties. Every run with the
+ * same scenario performs the same actions in the same order, so reports can be compared between runs.
+ * <p>
+ * Pass them through Gradle, ex. {@code ./gradlew runGametest -Pitemsbegone.loadtest.players=128}.
+ */
+record Scenario(
+        int players,
+        int teams,
+        int ticks,
+        int actionsPerTick,
+        double deniedFraction,
+        boolean deleteOnDeny,
+        long seed,
+        String blacklist
+) {
+    private static final String PREFIX = "itemsbegone.loadtest.";
+
+    static Scenario fromProperties() {
+        return new Scenario(
+                Integer.getInteger(PREFIX + "players", 64),
+                Integer.getInteger(PREFIX + "teams", 4),
+                Integer.getInteger(PREFIX + "ticks", 600),
+                Integer.getInteger(PREFIX + "actionsPerTick", 4),
+                Double.parseDouble(System.getProperty(PREFIX + "deniedFraction", "0.05")),
+                Boolean.parseBoolean(System.getProperty(PREFIX + "deleteOnDeny", "true")),
+                Long.getLong(PREFIX + "seed", 1L),
+                System.getProperty(PREFIX + "blacklist", "")
+        );
+    }
+
+    static String teamName(int team) {
+        return "loadtest_" + team;
+    }
+
+    /**
+     * @return The config named by {@link #blacklist}, or when there is none, one that denies a handful of common
+     * items globally and a namespace-sized chunk per team
+     */
+    Config config() throws IOException {
+        if (!blacklist.isEmpty()) {
+            Config config = ConfigCodec.read(Files.readString(Path.of(blacklist)));
+            config.delete_on_deny = deleteOnDeny;
+            return config;
+        }
+
+        Config config = ConfigCodec.validate(new Config(new Config.TeamList(new ArrayList<>()), deleteOnDeny));
+        config.blacklist.addTeam("global", new ArrayList<>(), new ArrayList<>(List.of(
+                "minecraft:diamond", "minecraft:netherite_ingot", "minecraft:tnt", "minecraft:elytra"
+        )), true);
+        for (int i = 0; i < teams; i++) {
+            Config.TeamConfig team = new Config.TeamConfig(teamName(i), new ArrayList<>(), new ArrayList<>(), true);
+            team.pattern_blacklist.add("minecraft:*_" + List.of("sword", "pickaxe", "axe", "shovel", "hoe").get(i % 5));
+            config.blacklist.teams.add(team);
+        }
+        return config;
+    }
+}
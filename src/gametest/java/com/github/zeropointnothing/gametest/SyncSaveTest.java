@@ -0,0 +1,82 @@
+package com.github.zeropointnothing.gametest;
+
+import com.github.zeropointnothing.BlacklistIndex;
+import com.github.zeropointnothing.ConfigLoader;
+import com.github.zeropointnothing.ConfigSync;
+import com.github.zeropointnothing.LocalSyncBackend;
+import com.github.zeropointnothing.SyncBackend;
+import com.github.zeropointnothing.core.Config;
+import com.github.zeropointnothing.core.ConfigCodec;
+import net.fabricmc.fabric.api.gametest.v1.FabricGameTest;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.test.GameTest;
+import net.minecraft.test.GameTestException;
+import net.minecraft.test.TestContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks that a config received through {@link ConfigSync} is saved like any other, and doesn't block the saves that
+ * come after it. Runs in its own batch, as it swaps the config the load test relies on.
+ */
+public class SyncSaveTest implements FabricGameTest {
+    private static final String CHANNEL = "itemsbegone-gametest";
+    private static final Path CONFIG_DIR = FabricLoader.getInstance().getConfigDir();
+
+    @GameTest(templateName = EMPTY_STRUCTURE, batchId = "sync", tickLimit = 100)
+    public void syncedSnapshotIsSaved(TestContext context) {
+        Config original = ConfigLoader.config().copy();
+        try {
+            // A leftover state from an earlier run would make the node skip the snapshot.
+            Files.deleteIfExists(CONFIG_DIR.resolve("itemsbegone_sync_state"));
+            Config shared = original.copy();
+            shared.blacklist.addTeam("synced", new ArrayList<>(), new ArrayList<>(List.of("minecraft:stone")), true);
+            LocalSyncBackend.open(CHANNEL).compact(new SyncBackend.Snapshot(1, shared.blacklist.teams, shared.players));
+        } catch (IOException e) {
+            throw new GameTestException("Could not reset the sync state: " + e.getMessage());
+        }
+
+        Config config = original.copy();
+        config.sync = new Config.SyncConfig();
+        config.sync.enabled = true;
+        config.sync.backend = "local";
+        config.sync.location = CHANNEL;
+        config.sync.poll_ticks = 1;
+        ConfigLoader.publish(config, BlacklistIndex.compile(config));
+        ConfigSync.start(context.getWorld().getServer());
+
+        context.waitAndRun(40, () -> {
+            try {
+                ConfigLoader.flushConfig();
+                if (read().blacklist.teams.stream().noneMatch(team -> team.name.equals("synced"))) {
+                    throw new GameTestException("The synced snapshot was never saved");
+                }
+
+                ConfigLoader.config().blacklist.getTeam("synced").item_blacklist.add("minecraft:dirt");
+                ConfigLoader.commitConfig();
+                ConfigLoader.flushConfig();
+                if (!read().blacklist.getTeam("synced").item_blacklist.contains("minecraft:dirt")) {
+                    throw new GameTestException("An edit made after the snapshot was never saved");
+                }
+            } finally {
+                ConfigSync.stop();
+                ConfigLoader.publish(original, BlacklistIndex.compile(original));
+                ConfigLoader.saveConfig();
+                ConfigLoader.flushConfig();
+            }
+            context.complete();
+        });
+    }
+
+    private static Config read() {
+        try {
+            return ConfigCodec.read(Files.readString(CONFIG_DIR.resolve("itemsbegone_config.json")));
+        } catch (IOException e) {
+            throw new GameTestException("Could not read the config: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.zeropointnothing.gametest;
+
+import net.fabricmc.api.ModInitializer;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+
+import java.util.Arrays;
+
+/**
+ * Records how long every server tick takes while a load test runs. Only touched from the server thread.
+ */
+public final class TickRecorder implements ModInitializer {
+    private static long[] samples;
+    private static int count;
+    private static long tickStart;
+
+    @Override
+    public void onInitialize() {
+        ServerTickEvents.START_SERVER_TICK.register(server -> tickStart = System.nanoTime());
+        ServerTickEvents.END_SERVER_TICK.register(server -> {
+            if (samples != null) {
+                if (count == samples.length) {
+                    samples = Arrays.copyOf(samples, count * 2);
+                }
+                samples[count++] = System.nanoTime() - tickStart;
+            }
+        });
+    }
+
+    static void start(int expectedTicks) {
+        samples = new long[Math.max(expectedTicks, 16)];
+        count = 0;
+    }
+
+    /**
+     * @return The length of every tick since {@link #start(int)}, in nanoseconds
+     */
+    static long[] stop() {
+        long[] recorded = Arrays.copyOf(samples, count);
+        samples = null;
+        return recorded;
+    }
+}
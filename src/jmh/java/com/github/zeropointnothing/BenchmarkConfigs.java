@@ -0,0 +1,92 @@
+package com.github.zeropointnothing;
+
+import com.github.zeropointnothing.core.Config;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.item.Item;
+import net.minecraft.item.Items;
+import net.minecraft.registry.Registries;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Shared setup for the benchmarks.
+ */
+final class BenchmarkConfigs {
+    private static boolean bootstrapped;
+
+    private BenchmarkConfigs() {}
+
+    /**
+     * Loads the vanilla registries. There is no Fabric launcher here, so no mixins are applied and only vanilla
+     * items exist.
+     */
+    static synchronized void bootstrap() {
+        if (!bootstrapped) {
+            SharedConstants.createGameVersion();
+            Bootstrap.initialize();
+            bootstrapped = true;
+        }
+    }
+
+    /**
+     * @return Every registered item except air
+     */
+    static List<Item> items() {
+        List<Item> items = new ArrayList<>();
+        for (Item item : Registries.ITEM) {
+            if (item != Items.AIR) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Generates a config with 'global' plus {@code teams - 1} other teams, and {@code ids} blacklist entries spread
+     * round-robin across them.
+     * <p>
+     * Half the entries are real item ids. The rest are namespaces and item ids that nothing registers, the way a
+     * config ends up after outliving a few modpack updates. 'minecraft' itself is never blacklisted, since that
+     * would deny nearly everything.
+     * @param teams The number of teams, 'global' included
+     * @param ids The total number of blacklist entries
+     * @param seed The seed to generate from, so every fork sees the same config
+     * @return The generated config
+     */
+    static Config generate(int teams, int ids, long seed) {
+        Random random = new Random(seed);
+        List<Item> items = items();
+
+        Config config = new Config(new Config.TeamList(new ArrayList<>()), false);
+        config.unknown_team_fallback = Config.UnknownTeamFallback.GLOBAL;
+        config.sweep = new Config.SweepConfig();
+        config.containers = new Config.ContainerConfig();
+        config.audit = new Config.AuditConfig();
+        for (int i = 0; i < teams; i++) {
+            config.blacklist.addTeam(teamName(i), new ArrayList<>(), new ArrayList<>(), true);
+        }
+
+        for (int i = 0; i < ids; i++) {
+            Config.TeamConfig team = config.blacklist.teams.get(i % teams);
+            switch (i % 4) {
+                case 0, 1 -> team.item_blacklist.add(
+                        Registries.ITEM.getId(items.get(random.nextInt(items.size()))).toString()
+                );
+                case 2 -> team.item_blacklist.add("bench_mod_" + random.nextInt(64) + ":item_" + i);
+                default -> team.namespace_blacklist.add("bench_mod_" + random.nextInt(64));
+            }
+        }
+        return config;
+    }
+
+    /**
+     * @param team The index of a team within a generated config
+     * @return The name of the team
+     */
+    static String teamName(int team) {
+        return team == 0 ? "global" : "team_" + team;
+    }
+}
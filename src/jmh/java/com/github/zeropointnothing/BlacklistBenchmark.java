@@ -0,0 +1,61 @@
+package com.github.zeropointnothing;
+
+import com.github.zeropointnothing.core.Config;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Single lookups against generated configs. Every call picks the next of {@link #SAMPLES} pre-generated
+ * (team, item) pairs, so the branch predictor can't learn the answer.
+ * <p>
+ * {@link #getTeam} is a baseline: it is the linear team lookup every check used to start with, before rules were
+ * compiled. Nothing on the hot path calls it anymore.
+ */
+@State(Scope.Thread)
+public class BlacklistBenchmark {
+    private static final int SAMPLES = 1024; // Must be a power of two
+
+    @Param({"1", "10", "100", "1000"})
+    public int teams;
+
+    @Param({"10", "1000", "50000"})
+    public int ids;
+
+    private Config config;
+    private final String[] teamNames = new String[SAMPLES];
+    private final ItemStack[] stacks = new ItemStack[SAMPLES];
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkConfigs.bootstrap();
+        config = BenchmarkConfigs.generate(teams, ids, 42);
+        ConfigLoader.publish(config, BlacklistIndex.compile(config));
+
+        Random random = new Random(7);
+        List<Item> items = BenchmarkConfigs.items();
+        for (int i = 0; i < SAMPLES; i++) {
+            teamNames[i] = BenchmarkConfigs.teamName(random.nextInt(teams));
+            stacks[i] = new ItemStack(items.get(random.nextInt(items.size())));
+        }
+    }
+
+    private int next() {
+        return cursor = (cursor + 1) & (SAMPLES - 1);
+    }
+
+    @Benchmark
+    public Boolean isBlacklisted() {
+        int i = next();
+        return ItemsBegone.isBlacklisted(stacks[i], teamNames[i]);
+    }
+
+    @Benchmark
+    public Config.TeamConfig getTeam() {
+        return config.blacklist.getTeam(teamNames[next()]);
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.zeropointnothing;
+
+import com.github.zeropointnothing.core.Config;
+import com.github.zeropointnothing.core.RuleSet;
+import net.minecraft.inventory.SimpleInventory;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Scans a full player-sized inventory, the work {@link ItemsBegone#checkInventory} does once its dirty slots are
+ * known. The dirty-slot tracking itself lives in a mixin, which can't be applied outside the game, so every slot is
+ * scanned here, the same as a sweep does.
+ */
+@State(Scope.Thread)
+public class InventoryBenchmark {
+    private static final int SLOTS = 41; // Main inventory, armor and offhand
+
+    @Param({"1", "1000"})
+    public int teams;
+
+    @Param({"10", "1000", "50000"})
+    public int ids;
+
+    /** How many of the slots hold a blacklisted item. */
+    @Param({"0", "1", "41"})
+    public int denied;
+
+    private SimpleInventory inventory;
+    private RuleSet.TeamRules rules;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkConfigs.bootstrap();
+        Config config = BenchmarkConfigs.generate(teams, ids, 42);
+        config.blacklist.getTeam("global").item_blacklist.add("minecraft:bedrock");
+        BlacklistIndex.rebuild(config);
+        rules = BlacklistIndex.current().getTeam(BenchmarkConfigs.teamName(teams - 1));
+
+        Random random = new Random(7);
+        List<Item> allowed = BenchmarkConfigs.items().stream()
+                .filter(item -> !BlacklistIndex.isBlacklisted(rules, new ItemStack(item)))
+                .toList();
+        inventory = new SimpleInventory(SLOTS);
+        for (int i = 0; i < SLOTS; i++) {
+            // Denied items fill the last slots, so even a single one is only found after a full scan
+            Item item = SLOTS - 1 - i < denied ? Items.BEDROCK : allowed.get(random.nextInt(allowed.size()));
+            inventory.setStack(i, new ItemStack(item, item.getMaxCount()));
+        }
+    }
+
+    @Benchmark
+    public int scanInventory() {
+        int found = 0;
+        for (
+                int i = ItemsBegone.nextBlacklisted(inventory, rules, TrackedInventory.ALL_SLOTS, 0);
+                i >= 0;
+                i = ItemsBegone.nextBlacklisted(inventory, rules, TrackedInventory.ALL_SLOTS, i + 1)
+        ) {
+            found++;
+        }
+        return found;
+    }
+}
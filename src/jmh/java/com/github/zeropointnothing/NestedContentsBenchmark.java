@@ -0,0 +1,75 @@
+package com.github.zeropointnothing;
+
+import com.github.zeropointnothing.core.Config;
+import com.github.zeropointnothing.core.RuleSet;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtList;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks a full shulker box, which {@link NestedContents} has to read entry by entry. {@link #cacheKey} is the least a
+ * verdict cache keyed by the contents would pay on every lookup, so a cache is only worth adding if it is clearly
+ * cheaper than {@link #scanShulkerBox}.
+ */
+@State(Scope.Thread)
+public class NestedContentsBenchmark {
+    private static final int SLOTS = 27;
+
+    @Param({"1", "1000"})
+    public int teams;
+
+    @Param({"10", "50000"})
+    public int ids;
+
+    /** How many of the slots hold a blacklisted item. */
+    @Param({"0", "1"})
+    public int denied;
+
+    private ItemStack box;
+    private NbtList contents;
+    private NbtList contentsCopy;
+    private RuleSet.TeamRules rules;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkConfigs.bootstrap();
+        Config config = BenchmarkConfigs.generate(teams, ids, 42);
+        config.blacklist.getTeam("global").item_blacklist.add("minecraft:bedrock");
+        BlacklistIndex.rebuild(config);
+        rules = BlacklistIndex.current().getTeam(BenchmarkConfigs.teamName(teams - 1));
+
+        Random random = new Random(7);
+        List<Item> allowed = BenchmarkConfigs.items().stream()
+                .filter(item -> !BlacklistIndex.isBlacklisted(rules, new ItemStack(item)))
+                .toList();
+        NbtList items = new NbtList();
+        for (int i = 0; i < SLOTS; i++) {
+            // Denied items fill the last slots, so even a single one is only found after a full scan
+            Item item = SLOTS - 1 - i < denied ? Items.BEDROCK : allowed.get(random.nextInt(allowed.size()));
+            NbtCompound entry = new ItemStack(item, item.getMaxCount()).writeNbt(new NbtCompound());
+            entry.putByte("Slot", (byte) i);
+            items.add(entry);
+        }
+        box = new ItemStack(Items.SHULKER_BOX);
+        box.getOrCreateSubNbt("BlockEntityTag").put("Items", items);
+        contents = box.getSubNbt("BlockEntityTag").getList("Items", NbtElement.COMPOUND_TYPE);
+        contentsCopy = contents.copy();
+    }
+
+    @Benchmark
+    public boolean scanShulkerBox() {
+        return BlacklistIndex.isBlacklisted(rules, box);
+    }
+
+    @Benchmark
+    public boolean cacheKey() {
+        return contents.hashCode() == contentsCopy.hashCode() && contents.equals(contentsCopy);
+    }
+}
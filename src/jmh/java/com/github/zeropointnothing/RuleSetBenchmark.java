@@ -0,0 +1,124 @@
+package com.github.zeropointnothing;
+
+import com.github.zeropointnothing.core.Config;
+import com.github.zeropointnothing.core.ConfigCodec;
+import com.github.zeropointnothing.core.DataPredicate;
+import com.github.zeropointnothing.core.ItemCatalog;
+import com.github.zeropointnothing.core.RuleSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * The rule engine on its own: compiling and resolving against a synthetic catalog, without bootstrapping Minecraft.
+ * Run just these with {@code ./gradlew jmh -PjmhInclude=RuleSetBenchmark}.
+ */
+@State(Scope.Thread)
+public class RuleSetBenchmark {
+    private static final int SAMPLES = 1024; // Must be a power of two
+    private static final int NAMESPACES = 64;
+
+    @Param({"1", "100"})
+    public int teams;
+
+    @Param({"1000", "50000"})
+    public int ids;
+
+    /** Roughly the size of a large modpack. */
+    @Param({"20000"})
+    public int items;
+
+    private ItemCatalog catalog;
+    private Config config;
+    private RuleSet rules;
+    private final String[] teamNames = new String[SAMPLES];
+    private final int[] rawIds = new int[SAMPLES];
+    private int cursor;
+
+    /**
+     * Numbers {@code size} items spread over {@link #NAMESPACES} namespaces. Has no tags or data rules.
+     */
+    private record SyntheticCatalog(int size) implements ItemCatalog {
+        @Override
+        public String id(int rawId) {
+            return "mod_" + rawId % NAMESPACES + ":item_" + rawId;
+        }
+
+        @Override
+        public int rawId(String id) {
+            int index = id.indexOf(":item_");
+            if (index < 0) {
+                return -1;
+            }
+            try {
+                int rawId = Integer.parseInt(id.substring(index + ":item_".length()));
+                return rawId < size && id.equals(id(rawId)) ? rawId : -1;
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        @Override
+        public int[] tag(String tag) {
+            return new int[0];
+        }
+
+        @Override
+        public DataPredicate data(String nbt) {
+            return stack -> false;
+        }
+
+        @Override
+        public int empty() {
+            return -1;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        catalog = new SyntheticCatalog(items);
+        Random random = new Random(42);
+
+        config = new Config(new Config.TeamList(new ArrayList<>()), false);
+        for (int i = 0; i < teams; i++) {
+            config.blacklist.addTeam(teamName(i), new ArrayList<>(), new ArrayList<>(), true);
+        }
+        // Same mix as BenchmarkConfigs.generate, which needs the registries: half real items, a quarter missing items,
+        // a quarter namespaces (some of which nothing registers).
+        for (int i = 0; i < ids; i++) {
+            Config.TeamConfig team = config.blacklist.teams.get(i % teams);
+            switch (i % 4) {
+                case 0, 1 -> team.item_blacklist.add(catalog.id(random.nextInt(items)));
+                case 2 -> team.item_blacklist.add("gone_mod:item_" + i);
+                default -> team.namespace_blacklist.add("mod_" + random.nextInt(NAMESPACES * 2));
+            }
+        }
+        ConfigCodec.validate(config);
+        rules = RuleSet.compile(config, catalog);
+
+        for (int i = 0; i < SAMPLES; i++) {
+            teamNames[i] = teamName(random.nextInt(teams));
+            rawIds[i] = random.nextInt(items);
+        }
+    }
+
+    private static String teamName(int team) {
+        return team == 0 ? "global" : "team_" + team;
+    }
+
+    private int next() {
+        return cursor = (cursor + 1) & (SAMPLES - 1);
+    }
+
+    @Benchmark
+    public RuleSet compile() {
+        return RuleSet.compile(config, catalog);
+    }
+
+    @Benchmark
+    public boolean resolveAndCheck() {
+        int i = next();
+        return rules.resolve(teamNames[i]).isBlacklisted(rawIds[i]);
+    }
+}
@@ -0,0 +1,321 @@
+package com.github.zeropointnothing;
+
+import com.github.zeropointnothing.core.Config;
+import com.google.gson.JsonObject;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.math.BlockPos;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records every denial to a rotating JSONL audit file ({@code logs/itemsbegone-audit.jsonl}).
+ * <p>
+ * Enforcement code only ever claims a slot in a preallocated lock-free ring buffer and fills it in, which never
+ * blocks and never allocates. A background thread drains the buffer, merges repeated denials of the same item for the
+ * same player over a time window, and does all formatting and I/O. Each player is also rate limited, so a spam-clicker
+ * can't flood the buffer: events past the limit are only counted, and reported with the next one that gets through.
+ * If the buffer is full anyway, events are dropped and the drop count is logged.
+ */
+public final class AuditLog implements Runnable {
+    private static final int CAPACITY = 1 << 14;
+    private static final int MASK = CAPACITY - 1;
+    private static final long DRAIN_INTERVAL_MS = 100;
+    private static final Path LOG_DIR = FabricLoader.getInstance().getGameDir().resolve("logs");
+    private static final String LOG_NAME = "itemsbegone-audit";
+
+    public enum Action {
+        USE("use"),
+        PICKUP("pickup"),
+        SWEEP("sweep"),
+        SLOT_CLICK("slot_click"),
+        CONTAINER("container"),
+        JOIN("join"),
+        RESPAWN("respawn"),
+        WORLD_CHANGE("world_change"),
+        TEAM_CHANGE("team_change");
+
+        public final String id;
+
+        Action(String id) {
+            this.id = id;
+        }
+    }
+
+    private static final class Event {
+        /** Set to the claimed position + 1 once the event is filled in, so the reader knows it can be consumed. */
+        volatile long sequence;
+        long time;
+        UUID uuid;
+        String subject;
+        int item;
+        int count;
+        Action action;
+        int suppressed;
+    }
+
+    private record Key(UUID uuid, String subject, int item, Action action) {}
+
+    private static final class Aggregate {
+        int events;
+        long items;
+        long suppressed;
+        long first;
+        long last;
+    }
+
+    private static final Event[] RING = new Event[CAPACITY];
+    private static final AtomicLong head = new AtomicLong();
+    private static volatile long tail;
+    private static final LongAdder dropped = new LongAdder();
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            RING[i] = new Event();
+        }
+    }
+
+    private static AuditLog instance;
+
+    private final Thread thread;
+    private volatile boolean running = true;
+    private final Map<Key, Aggregate> window = new LinkedHashMap<>();
+    private long windowStart = System.currentTimeMillis();
+    private OutputStream writer;
+    private long written;
+
+    private AuditLog() {
+        this.thread = new Thread(this, "ItemsBegone Audit Log");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Records a denial for a player. Must be called from the server thread.
+     * @param player The player that was denied
+     * @param stack The denied stack
+     * @param action What the player was doing
+     */
+    public static void record(PlayerEntity player, ItemStack stack, Action action) {
+        Config.AuditConfig config = BlacklistIndex.current().audit;
+        if (!config.enabled) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        PlayerState state = ((PlayerState.Holder) player).itemsbegone$getState();
+        if (now - state.auditWindowStart >= TimeUnit.SECONDS.toMillis(config.window_seconds)) {
+            state.auditWindowStart = now;
+            state.auditEvents = 0;
+        }
+        if (state.auditEvents >= config.max_events_per_player) {
+            state.auditSuppressed++;
+            return;
+        }
+        state.auditEvents++;
+        int suppressed = state.auditSuppressed;
+        state.auditSuppressed = 0;
+
+        publish(now, player.getUuid(), player.getEntityName(), stack, action, suppressed);
+    }
+
+    /**
+     * Records items removed from a container.
+     * @param pos Where the container is
+     * @param stack The removed stack
+     */
+    public static void recordContainer(BlockPos pos, ItemStack stack) {
+        if (!BlacklistIndex.current().audit.enabled) {
+            return;
+        }
+        publish(System.currentTimeMillis(), null, pos.toShortString(), stack, Action.CONTAINER, 0);
+    }
+
+    private static void publish(long time, UUID uuid, String subject, ItemStack stack, Action action, int suppressed) {
+        long position;
+        do {
+            position = head.get();
+            if (position - tail >= CAPACITY) {
+                dropped.increment();
+                return;
+            }
+        } while (!head.compareAndSet(position, position + 1));
+
+        Event event = RING[(int) (position & MASK)];
+        event.time = time;
+        event.uuid = uuid;
+        event.subject = subject;
+        event.item = Registries.ITEM.getRawId(stack.getItem());
+        event.count = stack.getCount();
+        event.action = action;
+        event.suppressed = suppressed;
+        event.sequence = position + 1;
+    }
+
+    public static synchronized void start() {
+        if (instance == null) {
+            instance = new AuditLog();
+            instance.thread.start();
+        }
+    }
+
+    /**
+     * Stops the background thread, writing out everything recorded so far.
+     */
+    public static synchronized void stop() {
+        if (instance == null) {
+            return;
+        }
+        // Not an interrupt: it would close the log file's channel under a write, and the final flush along with it.
+        instance.running = false;
+        LockSupport.unpark(instance.thread);
+        try {
+            instance.thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        instance = null;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            drain();
+            if (System.currentTimeMillis() - windowStart >= TimeUnit.SECONDS.toMillis(BlacklistIndex.current().audit.window_seconds)) {
+                flushWindow();
+            }
+            // Woken early when stopping, to fall through to the final flush.
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(DRAIN_INTERVAL_MS));
+        }
+        drain();
+        flushWindow();
+        closeWriter();
+    }
+
+    private void drain() {
+        long position = tail;
+        while (true) {
+            Event event = RING[(int) (position & MASK)];
+            if (event.sequence != position + 1) {
+                break;
+            }
+
+            Aggregate aggregate = window.computeIfAbsent(
+                    new Key(event.uuid, event.subject, event.item, event.action), key -> new Aggregate()
+            );
+            if (aggregate.events++ == 0) {
+                aggregate.first = event.time;
+            }
+            aggregate.last = event.time;
+            aggregate.items += event.count;
+            aggregate.suppressed += event.suppressed;
+
+            event.uuid = null;
+            event.subject = null;
+            position++;
+            tail = position; // Hands the slot back to the writers
+        }
+    }
+
+    private void flushWindow() {
+        windowStart = System.currentTimeMillis();
+        long lost = dropped.sumThenReset();
+        if (window.isEmpty() && lost == 0) {
+            return;
+        }
+
+        Config.AuditConfig config = BlacklistIndex.current().audit;
+        StringBuilder lines = new StringBuilder();
+        window.forEach((key, aggregate) -> {
+            String item = Registries.ITEM.getId(Registries.ITEM.get(key.item())).toString();
+            JsonObject line = new JsonObject();
+            line.addProperty("time", aggregate.first);
+            line.addProperty("last", aggregate.last);
+            line.addProperty(key.uuid() == null ? "container" : "player", key.subject());
+            if (key.uuid() != null) {
+                line.addProperty("uuid", key.uuid().toString());
+            }
+            line.addProperty("action", key.action().id);
+            line.addProperty("item", item);
+            line.addProperty("events", aggregate.events);
+            line.addProperty("items", aggregate.items);
+            if (aggregate.suppressed > 0) {
+                line.addProperty("suppressed", aggregate.suppressed);
+            }
+            lines.append(line).append('\n');
+
+            if (config.log_to_console) {
+                ItemsBegone.LOGGER.info("'{}' was denied {} x{} ({}, {} time(s))",
+                        key.subject(), item, aggregate.items, key.action().id, aggregate.events + aggregate.suppressed);
+            }
+        });
+        window.clear();
+        if (lost > 0) {
+            JsonObject line = new JsonObject();
+            line.addProperty("time", windowStart);
+            line.addProperty("dropped", lost);
+            lines.append(line).append('\n');
+            ItemsBegone.LOGGER.warn("Audit log fell behind, {} event(s) were dropped!", lost);
+        }
+
+        write(lines.toString(), config);
+    }
+
+    private void write(String lines, Config.AuditConfig config) {
+        try {
+            if (writer != null && written >= config.max_file_bytes) {
+                closeWriter();
+                rotate(config.max_files);
+            }
+            if (writer == null) {
+                Files.createDirectories(LOG_DIR);
+                Path file = LOG_DIR.resolve(LOG_NAME + ".jsonl");
+                writer = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                written = Files.size(file);
+            }
+            byte[] bytes = lines.getBytes(StandardCharsets.UTF_8);
+            writer.write(bytes);
+            writer.flush();
+            written += bytes.length;
+        } catch (IOException e) {
+            ItemsBegone.LOGGER.error("Failed to write audit log!", e);
+            closeWriter();
+        }
+    }
+
+    private static void rotate(int maxFiles) throws IOException {
+        // itemsbegone-audit.jsonl -> .1.jsonl -> .2.jsonl ... the oldest falls off the end
+        Files.deleteIfExists(LOG_DIR.resolve(LOG_NAME + "." + maxFiles + ".jsonl"));
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path from = LOG_DIR.resolve(LOG_NAME + "." + i + ".jsonl");
+            if (Files.exists(from)) {
+                Files.move(from, LOG_DIR.resolve(LOG_NAME + "." + (i + 1) + ".jsonl"), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(LOG_DIR.resolve(LOG_NAME + ".jsonl"), LOG_DIR.resolve(LOG_NAME + ".1.jsonl"), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void closeWriter() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            ItemsBegone.LOGGER.error("Failed to close audit log!", e);
+        }
+        writer = null;
+    }
+}
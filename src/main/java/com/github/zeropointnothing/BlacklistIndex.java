@@ -0,0 +1,78 @@
+package com.github.zeropointnothing;
+
+import com.github.zeropointnothing.core.Config;
+import com.github.zeropointnothing.core.RuleSet;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.registry.tag.TagKey;
+import net.minecraft.util.Identifier;
+
+/**
+ * Holds the {@link RuleSet} compiled from {@link ConfigLoader#config()} against the item registry.
+ * <p>
+ * This is the only thing the mixins and event callbacks read, so compiling can happen on any thread without them
+ * ever seeing a half-applied config. Edits compile a new rule set and swap it in through {@link #rebuild(Config)}.
+ */
+public final class BlacklistIndex {
+    private static volatile RuleSet current;
+
+    private BlacklistIndex() {}
+
+    public static RuleSet current() {
+        return current;
+    }
+
+    /**
+     * Compiles the given config and publishes it as the current rule set.
+     * @param config The config to compile
+     */
+    public static void rebuild(Config config) {
+        publish(compile(config));
+    }
+
+    /**
+     * Makes an already compiled rule set the current one. Readers see either the old or the new one, never a mix.
+     * @param rules The rule set to publish
+     */
+    public static void publish(RuleSet rules) {
+        current = rules;
+        BlacklistSender.markDirty();
+    }
+
+    public static RuleSet compile(Config config) {
+        return RuleSet.compile(config, RegistryCatalog.INSTANCE);
+    }
+
+    /**
+     * Checks a stack against a team's rules. The stack's NBT is only read if its item has data rules, or if it may
+     * hold other items (see {@link NestedContents}), so for nearly every stack this is the same single id check as
+     * before.
+     */
+    public static boolean isBlacklisted(RuleSet.TeamRules rules, ItemStack stack) {
+        if (deniesItem(rules, stack)) {
+            return true;
+        }
+        NbtCompound nbt = stack.getNbt();
+        return nbt != null && NestedContents.containsBlacklisted(rules, nbt);
+    }
+
+    /**
+     * Checks only the stack's own item against a team's rules, ignoring anything it holds.
+     */
+    public static boolean deniesItem(RuleSet.TeamRules rules, ItemStack stack) {
+        int rawId = Registries.ITEM.getRawId(stack.getItem());
+        return rules.isBlacklisted(rawId) || (rules.hasDataRules(rawId) && rules.matchesData(rawId, stack));
+    }
+
+    /**
+     * @param tag A tag id, with or without the leading '#'
+     * @return The tag key, or null if the id is invalid
+     */
+    public static TagKey<Item> parseTag(String tag) {
+        Identifier id = Identifier.tryParse(tag.startsWith("#") ? tag.substring(1) : tag);
+        return id == null ? null : TagKey.of(RegistryKeys.ITEM, id);
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.zeropointnothing;
+
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.util.Identifier;
+
+import java.util.BitSet;
+
+/**
+ * The S2C packet that tells a client which items its player may not use, so it can refuse them before asking the
+ * server (see {@link BlacklistSender}).
+ * <p>
+ * Items are sent by raw id, which Fabric's registry sync keeps identical between server and client. The packet either
+ * carries the whole set as a bitset, or only the ids that flipped since the last packet when that is smaller. Only
+ * items denied outright are included. Data rules and container contents are left to the server.
+ */
+public final class BlacklistPacket {
+    public static final Identifier ID = new Identifier(ItemsBegone.MOD_ID, "blacklist");
+
+    private static final byte FULL = 0;
+    private static final byte DELTA = 1;
+
+    private BlacklistPacket() {}
+
+    /**
+     * @param buf The buffer to write to
+     * @param previous The set the client currently has, or null if it has none
+     * @param denied The set the client should have
+     */
+    public static void write(PacketByteBuf buf, BitSet previous, BitSet denied) {
+        if (previous != null) {
+            BitSet flipped = (BitSet) previous.clone();
+            flipped.xor(denied);
+            // A var int is at most 3 bytes for any realistic raw id, a full set is 8 per 64 ids.
+            if (flipped.cardinality() * 3L < denied.length() / 8 + 8) {
+                buf.writeByte(DELTA);
+                buf.writeVarInt(flipped.cardinality());
+                flipped.stream().forEach(buf::writeVarInt);
+                return;
+            }
+        }
+        buf.writeByte(FULL);
+        buf.writeLongArray(denied.toLongArray());
+    }
+
+    /**
+     * @param buf The packet
+     * @param current The set the client has, updated in place
+     */
+    public static void read(PacketByteBuf buf, BitSet current) {
+        if (buf.readByte() == DELTA) {
+            int count = buf.readVarInt();
+            for (int i = 0; i < count; i++) {
+                current.flip(buf.readVarInt());
+            }
+        } else {
+            current.clear();
+            current.or(BitSet.valueOf(buf.readLongArray(null)));
+        }
+    }
+}
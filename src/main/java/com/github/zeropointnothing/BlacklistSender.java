@@ -0,0 +1,78 @@
+package com.github.zeropointnothing;
+
+import com.github.zeropointnothing.core.RuleSet;
+import net.fabricmc.fabric.api.entity.event.v1.ServerPlayerEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.networking.v1.PacketByteBufs;
+import net.fabricmc.fabric.api.networking.v1.S2CPlayChannelEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.util.BitSet;
+
+/**
+ * Keeps every modded client's copy of its player's blacklist (see {@link BlacklistPacket}) up to date.
+ * <p>
+ * Players are sent their rules as soon as their client is known to understand them. After that, nothing is looked at
+ * until the rules are recompiled or a team changes, and then only players whose denied items actually differ from
+ * what their client has get a packet. Vanilla clients are skipped.
+ */
+public final class BlacklistSender {
+    private static volatile boolean dirty;
+
+    private BlacklistSender() {}
+
+    public static void register() {
+        // A client's channels are only known once it has registered them, which may be after it has joined.
+        S2CPlayChannelEvents.REGISTER.register((handler, sender, server, channels) -> {
+            if (channels.contains(BlacklistPacket.ID)) {
+                server.execute(() -> update(handler.player));
+            }
+        });
+        // Respawning creates a new player, which would otherwise not know what the client was already sent.
+        ServerPlayerEvents.COPY_FROM.register((oldPlayer, newPlayer, alive) ->
+                state(newPlayer).syncedDenied = state(oldPlayer).syncedDenied
+        );
+        ServerTickEvents.END_SERVER_TICK.register(BlacklistSender::tick);
+    }
+
+    /**
+     * Called whenever any player's rules may have changed. Players are compared once the tick ends.
+     */
+    public static void markDirty() {
+        dirty = true;
+    }
+
+    private static void tick(MinecraftServer server) {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
+            update(player);
+        }
+    }
+
+    private static void update(ServerPlayerEntity player) {
+        if (!ServerPlayNetworking.canSend(player, BlacklistPacket.ID)) {
+            return;
+        }
+        RuleSet.TeamRules rules = ItemsBegone.getRules(player);
+        PlayerState state = state(player);
+        BitSet denied = rules.denied();
+        if (denied.equals(state.syncedDenied)) {
+            return;
+        }
+
+        PacketByteBuf buf = PacketByteBufs.create();
+        BlacklistPacket.write(buf, state.syncedDenied, denied);
+        ServerPlayNetworking.send(player, BlacklistPacket.ID, buf);
+        state.syncedDenied = denied;
+    }
+
+    private static PlayerState state(ServerPlayerEntity player) {
+        return ((PlayerState.Holder) player).itemsbegone$getState();
+    }
+}
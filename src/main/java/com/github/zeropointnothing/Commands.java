@@ -1,8 +1,11 @@
 package com.github.zeropointnothing;
 
+import com.github.zeropointnothing.core.Config;
+import com.mojang.authlib.GameProfile;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.arguments.BoolArgumentType;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.builder.ArgumentBuilder;
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import com.mojang.brigadier.context.CommandContext;
@@ -10,20 +13,32 @@ import com.mojang.brigadier.exceptions.CommandSyntaxException;
 import com.mojang.brigadier.suggestion.Suggestions;
 import com.mojang.brigadier.suggestion.SuggestionsBuilder;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.minecraft.command.CommandSource;
+import net.minecraft.command.argument.GameProfileArgumentType;
+import net.minecraft.command.argument.IdentifierArgumentType;
 import net.minecraft.command.argument.ItemStackArgumentType;
 import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
 import net.minecraft.registry.Registries;
+import net.minecraft.registry.tag.TagKey;
 import net.minecraft.scoreboard.Team;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.command.CommandManager;
 import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.text.Text;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class Commands {
+    private static final int SUGGESTION_LIMIT = 50;
+    private static final int SEARCH_LIMIT = 20;
+
     @FunctionalInterface
     public interface Command {
         int run(ServerCommandSource source, String[] args, CommandContext<ServerCommandSource> ctx) throws CommandSyntaxException;
@@ -161,6 +176,145 @@ public class Commands {
         return builder.buildFuture();
     }
 
+    /**
+     * Suggests item namespaces starting with what has been typed so far.
+     */
+    public static CompletableFuture<Suggestions> namespaceSuggest(CommandContext<ServerCommandSource> ctx, SuggestionsBuilder builder) {
+        RegistryIndex.get().namespaces(builder.getRemaining(), SUGGESTION_LIMIT).forEach(builder::suggest);
+        return builder.buildFuture();
+    }
+
+    /**
+     * Suggests every item tag currently known to the server.
+     */
+    public static CompletableFuture<Suggestions> tagSuggest(CommandContext<ServerCommandSource> ctx, SuggestionsBuilder builder) {
+        return CommandSource.suggestIdentifiers(Registries.ITEM.streamTags().map(TagKey::id), builder);
+    }
+
+    /**
+     * Basic suggestion builder that lists the files available to {@code /ibg batch import}.
+     */
+    public static CompletableFuture<Suggestions> importSuggest(CommandContext<ServerCommandSource> ctx, SuggestionsBuilder builder) {
+        try (Stream<Path> files = Files.list(ConfigLoader.importDir())) {
+            files.filter(Files::isRegularFile).forEach(file -> builder.suggest(
+                    StringArgumentType.escapeIfRequired(file.getFileName().toString())
+            ));
+        } catch (IOException e) {
+            // No import directory yet, so nothing to suggest
+        }
+        return builder.buildFuture();
+    }
+
+    /**
+     * @return The key a player's override is stored under: their name if an override was written for it by hand,
+     * otherwise their UUID
+     */
+    private static String playerKey(GameProfile profile) {
+        Config config = ConfigLoader.config();
+        String uuid = profile.getId().toString();
+        return config.getPlayer(uuid) == null && config.getPlayer(profile.getName()) != null ? profile.getName() : uuid;
+    }
+
+    /**
+     * Gives an entry of a player's {@link ConfiscationVault} back to them. The player must be online, and the item
+     * must no longer be blacklisted for them, otherwise it would just be confiscated again.
+     * @return Whether the entry was returned
+     */
+    private static boolean returnEntry(CommandContext<ServerCommandSource> ctx, GameProfile profile, int index) {
+        ServerPlayerEntity player = ctx.getSource().getServer().getPlayerManager().getPlayer(profile.getId());
+        if (player == null) {
+            ctx.getSource().sendError(Text.literal("%s must be online to get items back!".formatted(profile.getName())));
+            return false;
+        }
+        List<ConfiscationVault.Entry> entries = ConfiscationVault.list(profile.getId());
+        if (index >= entries.size()) {
+            ctx.getSource().sendError(Text.literal("%s's vault has no entry %d!".formatted(profile.getName(), index)));
+            return false;
+        }
+        ItemStack item = entries.get(index).stack();
+        if (BlacklistIndex.isBlacklisted(ItemsBegone.getRules(player), item)) {
+            ctx.getSource().sendError(Text.literal("'%s' is still blacklisted for %s, allow it first!".formatted(
+                    Registries.ITEM.getId(item.getItem()), profile.getName()
+            )));
+            return false;
+        }
+
+        ConfiscationVault.Entry entry = ConfiscationVault.take(profile.getId(), index);
+        for (long left = entry.count(); left > 0; ) {
+            int count = (int) Math.min(left, item.getMaxCount());
+            player.getInventory().offerOrDrop(item.copyWithCount(count));
+            left -= count;
+        }
+        ctx.getSource().sendFeedback(() -> Text.literal("Returned %d '%s' to %s.".formatted(
+                entry.count(), Registries.ITEM.getId(item.getItem()), profile.getName()
+        )), true);
+        return true;
+    }
+
+    /**
+     * Queues an edit instead of applying it, if the command's source has a batch open.
+     * @return Whether the edit was queued, in which case the command should return immediately
+     */
+    private static boolean queued(CommandContext<ServerCommandSource> ctx, ConfigEdit edit) {
+        EditBatch batch = EditBatch.get(ctx.getSource());
+        if (batch == null) {
+            return false;
+        }
+        batch.add(edit);
+        ctx.getSource().sendFeedback(() -> Text.literal(
+                "Queued: %s (%d pending)".formatted(edit, batch.size())
+        ), false);
+        return true;
+    }
+
+    /**
+     * Applies edits as one batch (or queues them, if a batch is open) and reports the outcome.
+     */
+    private static int applyEdits(CommandContext<ServerCommandSource> ctx, List<ConfigEdit> edits) {
+        EditBatch open = EditBatch.get(ctx.getSource());
+        if (open != null) {
+            open.addAll(edits);
+            ctx.getSource().sendFeedback(() -> Text.literal(
+                    "Queued %d edit(s) (%d pending)".formatted(edits.size(), open.size())
+            ), false);
+            return 1;
+        }
+        return reportBatch(ctx, EditBatch.commit(edits));
+    }
+
+    /**
+     * Applies a single edit and reports it with the given messages. Whether the edit changed anything is decided by
+     * the team's own lists, not by what its compiled rules happen to block (ex. through 'global' or a tag).
+     * @param done Sent if the edit changed the config
+     * @param unchanged Sent as an error if the edit was already in effect
+     */
+    private static int applyEdit(CommandContext<ServerCommandSource> ctx, ConfigEdit edit, String done, String unchanged) {
+        EditBatch.Result result = EditBatch.commit(List.of(edit));
+        if (result.applied() > 0) {
+            ctx.getSource().sendFeedback(() -> Text.literal(done), false);
+            return 1;
+        }
+        if (result.unchanged() > 0) {
+            ctx.getSource().sendError(Text.literal(unchanged));
+            return 0;
+        }
+        return reportBatch(ctx, result);
+    }
+
+    private static int reportBatch(CommandContext<ServerCommandSource> ctx, EditBatch.Result result) {
+        ctx.getSource().sendFeedback(() -> Text.literal("Applied %d edit(s), %d already in place, %d rejected.".formatted(
+                result.applied(), result.unchanged(), result.rejected().size()
+        )), true);
+        if (!result.rejected().isEmpty()) {
+            // Only show the first few, an import can easily reject hundreds
+            List<String> shown = result.rejected().subList(0, Math.min(10, result.rejected().size()));
+            ctx.getSource().sendError(Text.literal(String.join("\n", shown)
+                    + (shown.size() < result.rejected().size() ? "\n...and %d more".formatted(result.rejected().size() - shown.size()) : "")
+            ));
+        }
+        return result.rejected().isEmpty() ? 1 : 0;
+    }
+
     public static void register() {
         CommandRegistrationCallback.EVENT.register(((commandDispatcher, commandRegistryAccess, registrationEnvironment) -> {
             build(commandDispatcher, "hello", "ibg/debug/testing", 0, List.of(),
@@ -177,14 +331,16 @@ public class Commands {
                     String team_name = StringArgumentType.getString(ctx, "team");
                     Config.TeamConfig team;
                     try {
-                        team = ConfigLoader.CONFIG.blacklist.getTeam(team_name);
+                        team = ConfigLoader.config().blacklist.getTeam(team_name);
                     } catch (Config.NoSuchTeamException e) {
                         ctx.getSource().sendError(Text.literal("No such team '%s'!".formatted(team_name)));
                         return 0;
                     }
 
-                    ctx.getSource().sendFeedback(() -> Text.literal("// %s (%s):\n\nnamespaces:\n%s\nitems:\n%s".formatted(
-                            team.name, team.enabled?"enabled":"disabled", team.namespace_blacklist.toString(), team.item_blacklist.toString())
+                    List<String> nbt_rules = team.nbt_blacklist.stream().map(rule -> rule.item + " " + rule.nbt).toList();
+                    ctx.getSource().sendFeedback(() -> Text.literal("// %s (%s):\n\nnamespaces:\n%s\nitems:\n%s\ntags:\n%s\npatterns:\n%s\nnbt:\n%s".formatted(
+                            team.name, team.enabled?"enabled":"disabled", team.namespace_blacklist.toString(), team.item_blacklist.toString(),
+                            team.tag_blacklist.toString(), team.pattern_blacklist.toString(), nbt_rules.toString())
                     ), false);
                     return 1;
                 } catch (Exception e) {
@@ -195,89 +351,59 @@ public class Commands {
             build(commandDispatcher, "add", "ibg/namespace", 2, List.of(
                     CommandManager.argument("team", StringArgumentType.word()).suggests(Commands::teamSuggest),
                     CommandManager.argument("namespace", StringArgumentType.word())
-                            .suggests((ctx, builder) -> {
-                                // Suggest known namespaces
-                                Registries.ITEM.stream()
-                                        .map(item -> Registries.ITEM.getId(item).getNamespace())
-                                        .distinct()
-                                        .forEach(builder::suggest);
-                                return builder.buildFuture();
-                            })
+                            .suggests(Commands::namespaceSuggest)
             ), ((source, args, ctx) -> {
                 String team_name = StringArgumentType.getString(ctx, "team");
                 Config.TeamConfig team;
                 try {
-                    team = ConfigLoader.CONFIG.blacklist.getTeam(team_name);
+                    team = ConfigLoader.config().blacklist.getTeam(team_name);
                 } catch (Config.NoSuchTeamException e) {
                     ctx.getSource().sendError(Text.literal("No such team '%s'!".formatted(team_name)));
                     return 0;
                 }
 
                 String namespace = StringArgumentType.getString(ctx, "namespace");
-                Set<String> validNamespaces = Registries.ITEM.stream()
-                        .map(item -> Registries.ITEM.getId(item).getNamespace())
-                        .collect(Collectors.toSet());
-                if (!validNamespaces.contains(namespace)) {
+                ConfigEdit edit = new ConfigEdit(ConfigEdit.Op.ADD_NAMESPACE, team_name, namespace);
+                if (queued(ctx, edit)) {
+                    return 1;
+                }
+                if (!RegistryIndex.get().hasNamespace(namespace)) {
                     ctx.getSource().sendError(Text.literal("No such namespace '%s'!".formatted(namespace)));
                     return 0;
                 }
-                if (ItemsBegone.isBlacklistedNamespace(namespace, team_name)) {
-                    ctx.getSource().sendError(Text.literal(
-                            "Team '%s' already has the namespace '%s' blacklisted!".formatted(team_name, namespace)
-                    ));
-                    return 0;
-                } else {
-                    team.namespace_blacklist.add(namespace);
-                    ConfigLoader.saveConfig();
-                    ctx.getSource().sendFeedback(() -> Text.literal(
-                            "Added the namespace '%s' to '%s''s blacklist!".formatted(namespace, team_name)
-                    ), false);
-                    return 1;
-                }
+                return applyEdit(ctx, edit,
+                        "Added the namespace '%s' to '%s''s blacklist!".formatted(namespace, team_name),
+                        "Team '%s' already has the namespace '%s' blacklisted!".formatted(team_name, namespace)
+                );
             }));
 
             build(commandDispatcher, "del", "ibg/namespace", 2, List.of(
                     CommandManager.argument("team", StringArgumentType.word()).suggests(Commands::teamSuggest),
                     CommandManager.argument("namespace", StringArgumentType.word())
-                            .suggests((ctx, builder) -> {
-                                // Suggest known namespace: electric boogaloo
-                                Registries.ITEM.stream()
-                                        .map(item -> Registries.ITEM.getId(item).getNamespace())
-                                        .distinct()
-                                        .forEach(builder::suggest);
-                                return builder.buildFuture();
-                            })
+                            .suggests(Commands::namespaceSuggest)
             ), ((source, args, ctx) -> {
                 String team_name = StringArgumentType.getString(ctx, "team");
                 Config.TeamConfig team;
                 try {
-                    team = ConfigLoader.CONFIG.blacklist.getTeam(team_name);
+                    team = ConfigLoader.config().blacklist.getTeam(team_name);
                 } catch (Config.NoSuchTeamException e) {
                     ctx.getSource().sendError(Text.literal("No such team '%s'!".formatted(team_name)));
                     return 0;
                 }
                 String namespace = StringArgumentType.getString(ctx, "namespace");
-                Set<String> validNamespaces = Registries.ITEM.stream()
-                        .map(item -> Registries.ITEM.getId(item).getNamespace())
-                        .collect(Collectors.toSet());
+                ConfigEdit edit = new ConfigEdit(ConfigEdit.Op.REMOVE_NAMESPACE, team_name, namespace);
+                if (queued(ctx, edit)) {
+                    return 1;
+                }
 
-                if (!validNamespaces.contains(namespace)) {
+                if (!RegistryIndex.get().hasNamespace(namespace)) {
                     ctx.getSource().sendError(Text.literal("No such namespace '%s'".formatted(namespace)));
                     return 0;
                 }
-                if (!ItemsBegone.isBlacklistedNamespace(namespace, team_name)) {
-                    ctx.getSource().sendError(Text.literal(
-                            "Team '%s' already does not have the namespace '%s' blacklisted!".formatted(team_name, namespace)
-                    ));
-                    return 0;
-                } else {
-                    team.namespace_blacklist.remove(namespace);
-                    ConfigLoader.saveConfig();
-                    ctx.getSource().sendFeedback(() -> Text.literal(
-                            "Removed the namespace '%s' from '%s''s blacklisted!".formatted(namespace,team_name)
-                    ), false);
-                    return 1;
-                }
+                return applyEdit(ctx, edit,
+                        "Removed the namespace '%s' from '%s''s blacklist!".formatted(namespace, team_name),
+                        "Team '%s' already does not have the namespace '%s' blacklisted!".formatted(team_name, namespace)
+                );
             }));
 
             build(commandDispatcher, "add", "ibg/item", 2, List.of(
@@ -287,28 +413,21 @@ public class Commands {
                 String team_name = StringArgumentType.getString(ctx, "team");
                 Config.TeamConfig team;
                 try {
-                    team = ConfigLoader.CONFIG.blacklist.getTeam(team_name);
+                    team = ConfigLoader.config().blacklist.getTeam(team_name);
                 } catch (Config.NoSuchTeamException e) {
                     ctx.getSource().sendError(Text.literal("No such team '%s'!".formatted(team_name)));
                     return 0;
                 }
                 Item item = ItemStackArgumentType.getItemStackArgument(ctx, "item").getItem();
                 String id = Registries.ITEM.getId(item).toString();
-                if (ItemsBegone.isBlacklisted(item.getDefaultStack(), team_name)) {
-                    ctx.getSource().sendError(Text.literal("Team '%s' already has the item '%s' blacklisted!".formatted(
-                            team_name,
-                            id
-                    )));
-                    return 0;
-                } else {
-                    team.item_blacklist.add(id);
-                    ConfigLoader.saveConfig();
-                    ctx.getSource().sendFeedback(() -> Text.literal("Added the item '%s' to '%s''s blacklist!".formatted(
-                            id,
-                            team_name
-                    )),false);
+                ConfigEdit edit = new ConfigEdit(ConfigEdit.Op.ADD_ITEM, team_name, id);
+                if (queued(ctx, edit)) {
                     return 1;
                 }
+                return applyEdit(ctx, edit,
+                        "Added the item '%s' to '%s''s blacklist!".formatted(id, team_name),
+                        "Team '%s' already has the item '%s' blacklisted!".formatted(team_name, id)
+                );
             }));
 
             build(commandDispatcher, "del", "ibg/item", 2, List.of(
@@ -318,29 +437,22 @@ public class Commands {
                 String team_name = StringArgumentType.getString(ctx, "team");
                 Config.TeamConfig team;
                 try {
-                    team = ConfigLoader.CONFIG.blacklist.getTeam(team_name);
+                    team = ConfigLoader.config().blacklist.getTeam(team_name);
                 } catch (Config.NoSuchTeamException e) {
                     ctx.getSource().sendError(Text.literal("No such team '%s'!".formatted(team_name)));
                     return 0;
                 }
                 Item item = ItemStackArgumentType.getItemStackArgument(ctx, "item").getItem();
                 String id = Registries.ITEM.getId(item).toString();
-
-                if (!ItemsBegone.isBlacklisted(item.getDefaultStack(), team_name)) {
-                    ctx.getSource().sendError(Text.literal("Team '%s' does not have the item '%s' blacklisted!".formatted(
-                            team_name,
-                            id
-                    )));
-                    return 0;
-                } else {
-                    team.item_blacklist.remove(id);
-                    ConfigLoader.saveConfig();
-                    ctx.getSource().sendFeedback(() -> Text.literal("Removed the item '%s' from '%s''s blacklist!".formatted(
-                            id,
-                            team_name
-                    )),false);
+                ConfigEdit edit = new ConfigEdit(ConfigEdit.Op.REMOVE_ITEM, team_name, id);
+                if (queued(ctx, edit)) {
                     return 1;
                 }
+
+                return applyEdit(ctx, edit,
+                        "Removed the item '%s' from '%s''s blacklist!".formatted(id, team_name),
+                        "Team '%s' does not have the item '%s' blacklisted!".formatted(team_name, id)
+                );
             }));
 
             build(commandDispatcher, "set_enabled", "ibg/blacklist", 2, List.of(
@@ -348,21 +460,279 @@ public class Commands {
                     CommandManager.argument("enabled", BoolArgumentType.bool())
             ), ((source, args, ctx) -> {
                 String team_name = StringArgumentType.getString(ctx, "team");
-                Config.TeamConfig team;
                 try {
-                    team = ConfigLoader.CONFIG.blacklist.getTeam(team_name);
+                    ConfigLoader.config().blacklist.getTeam(team_name);
                 } catch (Config.NoSuchTeamException e) {
                     ctx.getSource().sendError(Text.literal("No such team '%s'!".formatted(team_name)));
                     return 0;
                 }
 
-                team.enabled = BoolArgumentType.getBool(ctx, "enabled");
-                ConfigLoader.saveConfig();
+                boolean enabled = BoolArgumentType.getBool(ctx, "enabled");
+                ConfigEdit edit = new ConfigEdit(ConfigEdit.Op.SET_ENABLED, team_name, Boolean.toString(enabled));
+                if (queued(ctx, edit)) {
+                    return 1;
+                }
+
+                return applyEdit(ctx, edit,
+                        "Switched team '%s' enabled state to: %s!".formatted(team_name, enabled),
+                        "Team '%s' is already %s!".formatted(team_name, enabled ? "enabled" : "disabled")
+                );
+            }));
+
+            build(commandDispatcher, "add_many", "ibg/item", 2, List.of(
+                    CommandManager.argument("team", StringArgumentType.word()).suggests(Commands::teamSuggest),
+                    CommandManager.argument("items", StringArgumentType.greedyString())
+            ), ((source, args, ctx) -> {
+                String team_name = StringArgumentType.getString(ctx, "team");
+                List<String> ids = List.of(StringArgumentType.getString(ctx, "items").trim().split("\\s+"));
+                return applyEdits(ctx, EditBatch.parseList(ids, team_name, true));
+            }));
+
+            build(commandDispatcher, "del_many", "ibg/item", 2, List.of(
+                    CommandManager.argument("team", StringArgumentType.word()).suggests(Commands::teamSuggest),
+                    CommandManager.argument("items", StringArgumentType.greedyString())
+            ), ((source, args, ctx) -> {
+                String team_name = StringArgumentType.getString(ctx, "team");
+                List<String> ids = List.of(StringArgumentType.getString(ctx, "items").trim().split("\\s+"));
+                return applyEdits(ctx, EditBatch.parseList(ids, team_name, false));
+            }));
+
+            build(commandDispatcher, "add", "ibg/tag", 2, List.of(
+                    CommandManager.argument("team", StringArgumentType.word()).suggests(Commands::teamSuggest),
+                    CommandManager.argument("tag", IdentifierArgumentType.identifier()).suggests(Commands::tagSuggest)
+            ), ((source, args, ctx) -> applyEdits(ctx, List.of(new ConfigEdit(
+                    ConfigEdit.Op.ADD_TAG,
+                    StringArgumentType.getString(ctx, "team"),
+                    IdentifierArgumentType.getIdentifier(ctx, "tag").toString()
+            )))));
+
+            build(commandDispatcher, "del", "ibg/tag", 2, List.of(
+                    CommandManager.argument("team", StringArgumentType.word()).suggests(Commands::teamSuggest),
+                    CommandManager.argument("tag", IdentifierArgumentType.identifier()).suggests(Commands::tagSuggest)
+            ), ((source, args, ctx) -> applyEdits(ctx, List.of(new ConfigEdit(
+                    ConfigEdit.Op.REMOVE_TAG,
+                    StringArgumentType.getString(ctx, "team"),
+                    IdentifierArgumentType.getIdentifier(ctx, "tag").toString()
+            )))));
+
+            build(commandDispatcher, "add", "ibg/pattern", 2, List.of(
+                    CommandManager.argument("team", StringArgumentType.word()).suggests(Commands::teamSuggest),
+                    CommandManager.argument("pattern", StringArgumentType.greedyString())
+            ), ((source, args, ctx) -> applyEdits(ctx, List.of(new ConfigEdit(
+                    ConfigEdit.Op.ADD_PATTERN,
+                    StringArgumentType.getString(ctx, "team"),
+                    StringArgumentType.getString(ctx, "pattern").trim()
+            )))));
+
+            build(commandDispatcher, "del", "ibg/pattern", 2, List.of(
+                    CommandManager.argument("team", StringArgumentType.word()).suggests(Commands::teamSuggest),
+                    CommandManager.argument("pattern", StringArgumentType.greedyString())
+            ), ((source, args, ctx) -> applyEdits(ctx, List.of(new ConfigEdit(
+                    ConfigEdit.Op.REMOVE_PATTERN,
+                    StringArgumentType.getString(ctx, "team"),
+                    StringArgumentType.getString(ctx, "pattern").trim()
+            )))));
+
+            for (ConfigEdit.Op op : List.of(
+                    ConfigEdit.Op.ADD_PLAYER_ALLOW, ConfigEdit.Op.REMOVE_PLAYER_ALLOW,
+                    ConfigEdit.Op.ADD_PLAYER_DENY, ConfigEdit.Op.REMOVE_PLAYER_DENY
+            )) {
+                String name = switch (op) {
+                    case ADD_PLAYER_ALLOW -> "allow";
+                    case REMOVE_PLAYER_ALLOW -> "unallow";
+                    case ADD_PLAYER_DENY -> "deny";
+                    default -> "undeny";
+                };
+                build(commandDispatcher, name, "ibg/player", 2, List.of(
+                        CommandManager.argument("players", GameProfileArgumentType.gameProfile()),
+                        CommandManager.argument("entries", StringArgumentType.greedyString())
+                ), ((source, args, ctx) -> {
+                    List<ConfigEdit> edits = new ArrayList<>();
+                    for (GameProfile profile : GameProfileArgumentType.getProfileArgument(ctx, "players")) {
+                        for (String entry : StringArgumentType.getString(ctx, "entries").trim().split("\\s+")) {
+                            edits.add(new ConfigEdit(op, playerKey(profile), entry));
+                        }
+                    }
+                    return applyEdits(ctx, edits);
+                }));
+            }
+
+            build(commandDispatcher, "get", "ibg/player", 2, List.of(
+                    CommandManager.argument("players", GameProfileArgumentType.gameProfile())
+            ), ((source, args, ctx) -> {
+                for (GameProfile profile : GameProfileArgumentType.getProfileArgument(ctx, "players")) {
+                    Config.PlayerOverride override = ConfigLoader.config().getPlayer(playerKey(profile));
+                    ctx.getSource().sendFeedback(() -> Text.literal(override == null
+                            ? "// %s: no overrides".formatted(profile.getName())
+                            : "// %s:\n\nallow:\n%s\ndeny:\n%s".formatted(profile.getName(), override.allow, override.deny)
+                    ), false);
+                }
+                return 1;
+            }));
+
+            build(commandDispatcher, "list", "ibg/vault", 2, List.of(
+                    CommandManager.argument("players", GameProfileArgumentType.gameProfile())
+            ), ((source, args, ctx) -> {
+                for (GameProfile profile : GameProfileArgumentType.getProfileArgument(ctx, "players")) {
+                    List<ConfiscationVault.Entry> entries = ConfiscationVault.list(profile.getId());
+                    StringBuilder builder = new StringBuilder("// %s's vault:\n".formatted(profile.getName()));
+                    for (int i = 0; i < entries.size(); i++) {
+                        ConfiscationVault.Entry entry = entries.get(i);
+                        builder.append("\n%d: %s x%d%s".formatted(
+                                i, Registries.ITEM.getId(entry.stack().getItem()), entry.count(),
+                                entry.stack().hasNbt() ? " (with data)" : ""
+                        ));
+                    }
+                    ctx.getSource().sendFeedback(() -> Text.literal(
+                            entries.isEmpty() ? "// %s's vault is empty".formatted(profile.getName()) : builder.toString()
+                    ), false);
+                }
+                return 1;
+            }));
+
+            build(commandDispatcher, "return", "ibg/vault", 2, List.of(
+                    CommandManager.argument("players", GameProfileArgumentType.gameProfile())
+            ), ((source, args, ctx) -> {
+                int returned = 0;
+                for (GameProfile profile : GameProfileArgumentType.getProfileArgument(ctx, "players")) {
+                    // Entries that can't be returned stay in place, so walk from the end to keep the indices valid.
+                    // An offline player is only reported once, by the first entry.
+                    for (int i = ConfiscationVault.list(profile.getId()).size() - 1; i >= 0; i--) {
+                        if (ctx.getSource().getServer().getPlayerManager().getPlayer(profile.getId()) == null) {
+                            returnEntry(ctx, profile, i);
+                            break;
+                        }
+                        returned += returnEntry(ctx, profile, i) ? 1 : 0;
+                    }
+                }
+                return returned;
+            }));
+
+            build(commandDispatcher, "return", "ibg/vault", 2, List.of(
+                    CommandManager.argument("players", GameProfileArgumentType.gameProfile()),
+                    CommandManager.argument("index", IntegerArgumentType.integer(0))
+            ), ((source, args, ctx) -> {
+                int returned = 0;
+                for (GameProfile profile : GameProfileArgumentType.getProfileArgument(ctx, "players")) {
+                    returned += returnEntry(ctx, profile, IntegerArgumentType.getInteger(ctx, "index")) ? 1 : 0;
+                }
+                return returned;
+            }));
+
+            build(commandDispatcher, "clear", "ibg/vault", 2, List.of(
+                    CommandManager.argument("players", GameProfileArgumentType.gameProfile())
+            ), ((source, args, ctx) -> {
+                int cleared = 0;
+                for (GameProfile profile : GameProfileArgumentType.getProfileArgument(ctx, "players")) {
+                    int removed = ConfiscationVault.clear(profile.getId());
+                    cleared += removed;
+                    ctx.getSource().sendFeedback(() -> Text.literal(
+                            "Destroyed %d entries from %s's vault.".formatted(removed, profile.getName())
+                    ), true);
+                }
+                return cleared;
+            }));
+
+            build(commandDispatcher, "search", "ibg", 2, List.of(
+                    CommandManager.argument("prefix", StringArgumentType.greedyString())
+            ), ((source, args, ctx) -> {
+                String prefix = StringArgumentType.getString(ctx, "prefix").trim();
+                RegistryIndex index = RegistryIndex.get();
+                List<String> namespaces = index.namespaces(prefix, SEARCH_LIMIT);
+                List<String> items = index.items(prefix, SEARCH_LIMIT);
+                int total = index.countItems(prefix);
+
+                ctx.getSource().sendFeedback(() -> Text.literal("// '%s':\n\nnamespaces:\n%s\nitems (%d of %d):\n%s".formatted(
+                        prefix, namespaces, items.size(), total, items
+                )), false);
+                return total > 0 || !namespaces.isEmpty() ? 1 : 0;
+            }));
+
+            build(commandDispatcher, "status", "ibg/sweep", 2, List.of(), ((source, args, ctx) -> {
+                ctx.getSource().sendFeedback(() -> Text.literal(SweepScheduler.status()), false);
+                return 1;
+            }));
+
+            build(commandDispatcher, "stats", "ibg", 2, List.of(), ((source, args, ctx) -> {
+                ctx.getSource().sendFeedback(() -> Text.literal(Metrics.summary()), false);
+                return 1;
+            }));
+
+            build(commandDispatcher, "reset", "ibg/stats", 2, List.of(), ((source, args, ctx) -> {
+                Metrics.reset();
+                ctx.getSource().sendFeedback(() -> Text.literal("Reset all enforcement metrics."), true);
+                return 1;
+            }));
+
+            build(commandDispatcher, "status", "ibg/sync", 2, List.of(), ((source, args, ctx) -> {
+                ctx.getSource().sendFeedback(() -> Text.literal(ConfigSync.status()), false);
+                return 1;
+            }));
+
+            build(commandDispatcher, "begin", "ibg/batch", 2, List.of(), ((source, args, ctx) -> {
+                if (!EditBatch.canOpen(ctx.getSource())) {
+                    ctx.getSource().sendError(Text.literal("Only players and the server console can open a batch!"));
+                    return 0;
+                }
+                if (!EditBatch.begin(ctx.getSource())) {
+                    ctx.getSource().sendError(Text.literal("You already have a batch open! Commit or abort it first."));
+                    return 0;
+                }
+                ctx.getSource().sendFeedback(() -> Text.literal(
+                        "Batch started. Edits will be queued until '/ibg batch commit' or '/ibg batch abort'."
+                ), false);
+                return 1;
+            }));
+
+            build(commandDispatcher, "commit", "ibg/batch", 2, List.of(), ((source, args, ctx) -> {
+                EditBatch batch = EditBatch.end(ctx.getSource());
+                if (batch == null) {
+                    ctx.getSource().sendError(Text.literal("You don't have a batch open!"));
+                    return 0;
+                }
+                try {
+                    EditBatch.Result result = batch.commit();
+                    if (!result.rejected().isEmpty()) {
+                        ctx.getSource().sendError(Text.literal("Batch aborted, none of its edits were applied."));
+                    }
+                    return reportBatch(ctx, result);
+                } catch (Exception e) {
+                    throw new CommandError("%s: %s".formatted(e.getClass().getName(), e.getMessage()), ctx);
+                }
+            }));
+
+            build(commandDispatcher, "abort", "ibg/batch", 2, List.of(), ((source, args, ctx) -> {
+                EditBatch batch = EditBatch.end(ctx.getSource());
+                if (batch == null) {
+                    ctx.getSource().sendError(Text.literal("You don't have a batch open!"));
+                    return 0;
+                }
                 ctx.getSource().sendFeedback(() -> Text.literal(
-                        "Switched team '%s' enabled state to: %s!".formatted(team_name, team.enabled)
+                        "Discarded %d queued edit(s).".formatted(batch.size())
                 ), false);
                 return 1;
             }));
+
+            build(commandDispatcher, "import", "ibg/batch", 2, List.of(
+                    CommandManager.argument("team", StringArgumentType.word()).suggests(Commands::teamSuggest),
+                    CommandManager.argument("file", StringArgumentType.string()).suggests(Commands::importSuggest)
+            ), ((source, args, ctx) -> {
+                String team_name = StringArgumentType.getString(ctx, "team");
+                String file = StringArgumentType.getString(ctx, "file");
+                Path path = ConfigLoader.resolveImport(file);
+                if (path == null || !Files.isRegularFile(path)) {
+                    ctx.getSource().sendError(Text.literal("No such file '%s' in '%s'!".formatted(file, ConfigLoader.importDir())));
+                    return 0;
+                }
+
+                List<String> lines;
+                try {
+                    lines = Files.readAllLines(path);
+                } catch (IOException e) {
+                    throw new CommandError("%s: %s".formatted(e.getClass().getName(), e.getMessage()), ctx);
+                }
+                return applyEdits(ctx, EditBatch.parseList(lines, team_name, true));
+            }));
         }));
     }
 
@@ -0,0 +1,49 @@
+package com.github.zeropointnothing;
+
+/**
+ * A single change to a team's blacklist, as made by one of the edit commands.
+ * @param op What to change
+ * @param team The name of the team to change, or the UUID or name of the player for the player ops
+ * @param value The item id, namespace, tag or pattern to add/remove, or "true"/"false" for {@link Op#SET_ENABLED}.
+ *              Player ops take an entry in list file syntax (see {@link com.github.zeropointnothing.core.Config.PlayerOverride}).
+ */
+public record ConfigEdit(Op op, String team, String value) {
+    public enum Op {
+        ADD_ITEM,
+        REMOVE_ITEM,
+        ADD_NAMESPACE,
+        REMOVE_NAMESPACE,
+        ADD_TAG,
+        REMOVE_TAG,
+        ADD_PATTERN,
+        REMOVE_PATTERN,
+        SET_ENABLED,
+        ADD_PLAYER_ALLOW,
+        REMOVE_PLAYER_ALLOW,
+        ADD_PLAYER_DENY,
+        REMOVE_PLAYER_DENY;
+
+        public boolean isPlayerOp() {
+            return this == ADD_PLAYER_ALLOW || this == REMOVE_PLAYER_ALLOW || this == ADD_PLAYER_DENY || this == REMOVE_PLAYER_DENY;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return switch (op) {
+            case ADD_ITEM -> "add item '%s' to '%s'".formatted(value, team);
+            case REMOVE_ITEM -> "remove item '%s' from '%s'".formatted(value, team);
+            case ADD_NAMESPACE -> "add namespace '%s' to '%s'".formatted(value, team);
+            case REMOVE_NAMESPACE -> "remove namespace '%s' from '%s'".formatted(value, team);
+            case ADD_TAG -> "add tag '#%s' to '%s'".formatted(value, team);
+            case REMOVE_TAG -> "remove tag '#%s' from '%s'".formatted(value, team);
+            case ADD_PATTERN -> "add pattern '%s' to '%s'".formatted(value, team);
+            case REMOVE_PATTERN -> "remove pattern '%s' from '%s'".formatted(value, team);
+            case SET_ENABLED -> "set '%s' enabled to %s".formatted(team, value);
+            case ADD_PLAYER_ALLOW -> "allow '%s' for player '%s'".formatted(value, team);
+            case REMOVE_PLAYER_ALLOW -> "stop allowing '%s' for player '%s'".formatted(value, team);
+            case ADD_PLAYER_DENY -> "deny '%s' to player '%s'".formatted(value, team);
+            case REMOVE_PLAYER_DENY -> "stop denying '%s' to player '%s'".formatted(value, team);
+        };
+    }
+}
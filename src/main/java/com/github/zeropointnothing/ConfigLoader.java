@@ -1,72 +1,256 @@
 package com.github.zeropointnothing;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.github.zeropointnothing.core.Config;
+import com.github.zeropointnothing.core.ConfigCodec;
+import com.github.zeropointnothing.core.RuleSet;
+import com.github.zeropointnothing.core.RuleSetCache;
 import com.google.gson.JsonParseException;
 import net.fabricmc.loader.api.FabricLoader;
 import java.io.IOException;
-import java.io.Reader;
 import java.io.Writer;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.util.ArrayList;
 
 public class ConfigLoader {
-    private static final Path CONFIG_PATH = FabricLoader.getInstance().getConfigDir().resolve("itemsbegone_config.json");
-    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
-    public static Config CONFIG;
+    private static Config config;
+    /** The file contents last read or written by the mod. */
+    private static volatile String lastSyncedJson;
+    /**
+     * The JSON the published config was read from or is written as, which the {@link RuleSetCache} is keyed by. It
+     * runs ahead of {@link #lastSyncedJson} until a synced config is saved, and is null for configs that are not
+     * meant to be saved.
+     */
+    private static volatile String configJson;
+    /**
+     * Whether the published rules differ from what is in the {@link RuleSetCache}, and should be written to it when
+     * the server stops.
+     */
+    private static boolean cacheStale = true;
 
+    /**
+     * Resolved on first use rather than when this class loads, so configs can be parsed where no game directory
+     * exists (ex. the JMH benchmarks).
+     */
+    private static final class Locations {
+        static final Path CONFIG_PATH = FabricLoader.getInstance().getConfigDir().resolve("itemsbegone_config.json");
+        static final Path IMPORT_DIR = FabricLoader.getInstance().getConfigDir().resolve("itemsbegone_imports");
+        static final Path CACHE_PATH = FabricLoader.getInstance().getConfigDir().resolve("itemsbegone_rules.bin");
+    }
+
+    /**
+     * Reads the config file, creating it with default values if it doesn't exist. The file is only parsed once
+     * something needs the {@link #config()}, which on a restart with an unchanged config is usually not until the
+     * first edit.
+     */
     public static void loadConfig() {
         try {
-            if (Files.notExists(CONFIG_PATH)) {
+            if (Files.notExists(Locations.CONFIG_PATH)) {
                 ItemsBegone.LOGGER.warn("Config did not exist, so it was created with default values!");
-                CONFIG = new Config(new Config.TeamList(new ArrayList<>()), false);
+                config = new Config(new Config.TeamList(new ArrayList<>()), false);
+                config.unknown_team_fallback = Config.UnknownTeamFallback.GLOBAL;
+                config.sweep = new Config.SweepConfig();
+                config.containers = new Config.ContainerConfig();
+                config.audit = new Config.AuditConfig();
+                config.sync = new Config.SyncConfig();
+                config.vault = new Config.VaultConfig();
 
                 // set default teams
-                CONFIG.blacklist.addTeam("global", new ArrayList<>(), new ArrayList<>(), true);
+                config.blacklist.addTeam("global", new ArrayList<>(), new ArrayList<>(), true);
                 //
-                saveConfig();
+                writeConfig(config);
                 return;
             }
 
-            try (Reader reader = Files.newBufferedReader(CONFIG_PATH)) {
-                CONFIG = GSON.fromJson(reader, Config.class);
-
-                // Validate the config.
-                if (CONFIG.delete_on_deny == null) {
-                    throw new JsonParseException("Required config value 'delete_on_deny' is not present!");
-                }
-                if (CONFIG.blacklist == null) {
-                    throw new JsonParseException("Required config value 'blacklist' is not present!");
-                }
-                if (CONFIG.blacklist.teams == null) {
-                    throw new JsonParseException("Required config value 'blacklist.teams' is not present!");
-                }
-                // Validate teams as well
-                for (int i=0; i<CONFIG.blacklist.teams.size(); i++) {
-                    Config.TeamConfig team = CONFIG.blacklist.teams.get(i);
-                    if (
-                            team.item_blacklist == null
-                            || team.enabled == null
-                            || team.namespace_blacklist == null
-                            || team.name == null
-                    ) {
-                        throw new JsonParseException("Team '" + (i+1) + "' within config is malformed!");
-                    }
-                }
-            }
+            lastSyncedJson = Files.readString(Locations.CONFIG_PATH);
+            configJson = lastSyncedJson;
         } catch (IOException e) {
             throw new RuntimeException("Failed to load config", e);
-        } catch (JsonParseException e) {
-            throw new RuntimeException("Failed to load config, as it was malformed!", e);
         }
     }
 
-    public static void saveConfig() {
-        try (Writer writer = Files.newBufferedWriter(CONFIG_PATH)) {
-            GSON.toJson(CONFIG, writer);
+    /**
+     * Publishes the rules for the loaded config. They are read from the {@link RuleSetCache} if it was written for
+     * the same config file and item registry, otherwise the config is compiled and the cache replaced. Must be
+     * called once the registries are frozen.
+     */
+    public static void loadRules() {
+        long hash = RuleSetCache.hash(configJson);
+        try {
+            RuleSet cached = RuleSetCache.read(Locations.CACHE_PATH, hash, RegistryCatalog.INSTANCE);
+            if (cached != null) {
+                BlacklistIndex.publish(cached);
+                cacheStale = false;
+                ItemsBegone.LOGGER.info("Loaded compiled rules from the cache.");
+                return;
+            }
+        } catch (IOException e) {
+            ItemsBegone.LOGGER.warn("Could not read the rule cache, compiling the config instead.", e);
+        }
+
+        recompile();
+        ItemsBegone.LOGGER.info("Compiled {} teams from the config.", config().blacklist.teams.size());
+        saveRules();
+    }
+
+    /**
+     * Compiles the config again without saving it, for when something the rules depend on (ex. tags) has changed.
+     */
+    public static void recompile() {
+        BlacklistIndex.rebuild(config());
+        cacheStale = true;
+    }
+
+    /**
+     * Writes the current rules to the {@link RuleSetCache} if they have changed since it was last read or written,
+     * and match the config file.
+     */
+    public static void saveRules() {
+        String json = configJson;
+        if (!cacheStale || json == null) {
+            return;
+        }
+        try {
+            RuleSetCache.write(
+                    Locations.CACHE_PATH, RuleSetCache.hash(json), config(), BlacklistIndex.current(),
+                    RegistryCatalog.INSTANCE
+            );
+            cacheStale = false;
         } catch (IOException e) {
-            throw new RuntimeException("Failed to save config", e);
+            ItemsBegone.LOGGER.warn("Could not write the rule cache, the next start will compile the config again.", e);
+        }
+    }
+
+    /**
+     * The config as it is being edited. Must only be used on the server thread.
+     * @return The config, parsed from the file on first use
+     */
+    public static Config config() {
+        if (config == null) {
+            try {
+                config = ConfigCodec.read(lastSyncedJson);
+            } catch (JsonParseException e) {
+                throw new RuntimeException("Failed to load config, as it was malformed!", e);
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Swaps in a config that was loaded from the file (see {@link ConfigWatcher}). Must be called on the server thread,
+     * so commands never edit a config that is being replaced.
+     * @param json The file contents the config was read from
+     * @param config The new config
+     * @param index The rules compiled from the new config
+     */
+    static void reload(String json, Config config, RuleSet index) {
+        lastSyncedJson = json;
+        publish(json, config, index);
+    }
+
+    /**
+     * Swaps in a config that did not come from the file, such as a sync snapshot. The file is left as is until the
+     * config is saved. Must be called on the server thread.
+     * @param json The JSON the config is written as (see {@link ConfigCodec#write}), or null if it is not meant to
+     *             be saved
+     * @param config The new config
+     * @param index The rules compiled from the new config
+     */
+    static void publish(String json, Config config, RuleSet index) {
+        ConfigLoader.config = config;
+        configJson = json;
+        BlacklistIndex.publish(index);
+        cacheStale = true;
+    }
+
+    /**
+     * Swaps in a config that is not meant to be saved, such as one generated by a benchmark or load test. It is not
+     * cached unless it gets saved anyway.
+     * @param config The new config
+     * @param index The rules compiled from the new config
+     */
+    public static void publish(Config config, RuleSet index) {
+        publish(null, config, index);
+    }
+
+    static Path configPath() {
+        return Locations.CONFIG_PATH;
+    }
+
+    /**
+     * @return The directory list files for {@code /ibg batch import} are read from
+     */
+    public static Path importDir() {
+        return Locations.IMPORT_DIR;
+    }
+
+    /**
+     * Resolves the name of a list file within {@link #importDir()}.
+     * @param name The file name
+     * @return The path of the file, or null if the name would point outside the import directory
+     */
+    public static Path resolveImport(String name) {
+        Path path = Locations.IMPORT_DIR.resolve(name).normalize();
+        return path.startsWith(Locations.IMPORT_DIR) ? path : null;
+    }
+
+    /**
+     * @return The file contents last read or written by the mod, used to tell our own saves apart from outside edits
+     */
+    static String lastSyncedJson() {
+        return lastSyncedJson;
+    }
+
+    /**
+     * Recompiles the {@link BlacklistIndex} and saves the config. Should be called after every edit to the
+     * {@link #config()}.
+     */
+    public static void commitConfig() {
+        recompile();
+        saveConfig();
+    }
+
+    /**
+     * Queues the config to be saved by the {@link ConfigWriter}. Bursts of saves are coalesced into one write.
+     */
+    public static void saveConfig() {
+        ConfigWriter.submit(config().copy());
+    }
+
+    /**
+     * Writes any queued save to disk, blocking until it is done.
+     */
+    public static void flushConfig() {
+        ConfigWriter.flush();
+    }
+
+    /**
+     * Writes the config to a temporary file, then moves it over the real one, so a crash mid-write can never leave
+     * a truncated config behind.
+     * @param config The config to write
+     */
+    static void writeConfig(Config config) throws IOException {
+        Path temp = Locations.CONFIG_PATH.resolveSibling(Locations.CONFIG_PATH.getFileName() + ".tmp");
+        String json = ConfigCodec.write(config);
+        lastSyncedJson = json;
+        configJson = json;
+        try (
+                FileChannel channel = FileChannel.open(
+                        temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE
+                );
+                Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8)
+        ) {
+            writer.write(json);
+            writer.flush();
+            channel.force(true);
+        }
+
+        try {
+            Files.move(temp, Locations.CONFIG_PATH, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, Locations.CONFIG_PATH, StandardCopyOption.REPLACE_EXISTING);
         }
     }
 }
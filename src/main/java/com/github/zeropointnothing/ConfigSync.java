@@ -0,0 +1,285 @@
+package com.github.zeropointnothing;
+
+import com.github.zeropointnothing.core.Config;
+import com.github.zeropointnothing.core.ConfigCodec;
+import com.google.gson.JsonParseException;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.server.MinecraftServer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shares blacklist edits with other servers through a {@link SyncBackend}, when enabled in the config.
+ * <p>
+ * Every edit that changes the config locally is appended to the shared log as a small delta. Each node polls the log
+ * and applies new deltas as one {@link EditBatch}, so catching up never needs a full reload. A node that has fallen
+ * behind the last compaction (or has never synced) starts over from the snapshot instead. Only team lists and
+ * player overrides are shared, every other setting stays local.
+ * <p>
+ * Backend I/O happens on the sync thread. Results are handed to the server thread, which is the only one that touches
+ * the config or {@link #applied}.
+ */
+public final class ConfigSync {
+    private static final Path STATE_PATH = FabricLoader.getInstance().getConfigDir().resolve("itemsbegone_sync_state");
+
+    private static ConfigSync instance;
+
+    private final MinecraftServer server;
+    private final SyncBackend backend;
+    private final Config.SyncConfig settings;
+    private final String node;
+    private final ExecutorService executor;
+
+    // Server thread only.
+    /** The last version reflected in the local config, or -1 if this node has never synced. */
+    private long applied;
+    private long snapshotVersion;
+    private boolean polling;
+    private int ticks;
+
+    private ConfigSync(MinecraftServer server, SyncBackend backend, Config.SyncConfig settings, long applied) {
+        this.server = server;
+        this.backend = backend;
+        this.settings = settings;
+        this.node = settings.node_id != null ? settings.node_id : UUID.randomUUID().toString();
+        this.applied = applied;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ItemsBegone Sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static synchronized void start(MinecraftServer server) {
+        Config.SyncConfig settings = BlacklistIndex.current().sync;
+        if (instance != null || !settings.enabled) {
+            return;
+        }
+
+        try {
+            SyncBackend backend = settings.backend.equals("local")
+                    ? LocalSyncBackend.open(settings.location)
+                    : new DirectorySyncBackend(FabricLoader.getInstance().getConfigDir().resolve(settings.location));
+            long applied = Files.exists(STATE_PATH) ? Long.parseLong(Files.readString(STATE_PATH).strip()) : -1;
+            instance = new ConfigSync(server, backend, settings, applied);
+            ItemsBegone.LOGGER.info("Syncing blacklists as node '{}' from version {}.", instance.node, applied);
+        } catch (IOException | NumberFormatException e) {
+            ItemsBegone.LOGGER.warn("Unable to start syncing, blacklist edits will stay local!", e);
+        }
+    }
+
+    public static synchronized void stop() {
+        if (instance == null) {
+            return;
+        }
+
+        instance.executor.shutdown();
+        try {
+            instance.executor.awaitTermination(5, TimeUnit.SECONDS);
+            instance.backend.close();
+        } catch (IOException e) {
+            ItemsBegone.LOGGER.warn("Failed to close the sync backend!", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        instance = null;
+    }
+
+    public static void tick(MinecraftServer server) {
+        ConfigSync sync = instance;
+        if (sync != null && !sync.polling && ++sync.ticks >= sync.settings.poll_ticks) {
+            sync.ticks = 0;
+            sync.poll();
+        }
+    }
+
+    /**
+     * Shares edits that were just applied locally. Does nothing if sync is disabled. Must be called on the server
+     * thread.
+     * @param edits The edits, only those that actually changed something
+     */
+    public static void push(List<ConfigEdit> edits) {
+        ConfigSync sync = instance;
+        if (sync == null || edits.isEmpty() || sync.applied < 0) {
+            return; // Until the first sync, local edits would be overwritten by the snapshot anyway
+        }
+
+        List<ConfigEdit> delta = List.copyOf(edits);
+        sync.executor.execute(() -> {
+            try {
+                long version = sync.backend.append(sync.node, delta);
+                sync.server.execute(() -> {
+                    // If others appended in between, leave it to the next poll to apply everything in log order.
+                    if (version == sync.applied + 1) {
+                        sync.setApplied(version);
+                    }
+                });
+            } catch (IOException e) {
+                ItemsBegone.LOGGER.warn("Failed to share {} blacklist edit(s), they will only apply here!", delta.size(), e);
+            }
+        });
+    }
+
+    /**
+     * @return A short description of the sync state, for {@code /ibg sync status}
+     */
+    public static String status() {
+        ConfigSync sync = instance;
+        if (sync == null) {
+            return "Sync is disabled.";
+        }
+        return "Node '%s' (%s backend) is at version %d, last snapshot at %d.".formatted(
+                sync.node, sync.settings.backend, sync.applied, sync.snapshotVersion
+        );
+    }
+
+    private void poll() {
+        polling = true;
+        long from = applied;
+        // The first node to sync seeds the log with its own lists.
+        SyncBackend.Snapshot seed = from < 0 ? seed() : null;
+
+        executor.execute(() -> {
+            SyncBackend.Snapshot snapshot = null;
+            List<SyncBackend.Delta> deltas;
+            try {
+                long start = from;
+                if (from < 0) {
+                    snapshot = backend.snapshot();
+                    if (snapshot == null) {
+                        if (backend.since(0).isEmpty()) {
+                            backend.compact(seed);
+                        }
+                        start = 0; // Whatever is in the log applies on top of our own teams
+                    }
+                }
+                deltas = snapshot == null ? backend.since(start) : null;
+                if (deltas == null) {
+                    if (snapshot == null) {
+                        snapshot = backend.snapshot();
+                    }
+                    deltas = backend.since(snapshot.version());
+                }
+            } catch (IOException | RuntimeException e) {
+                ItemsBegone.LOGGER.warn("Failed to read the sync log, retrying later.", e);
+                server.execute(() -> polling = false);
+                return;
+            }
+
+            SyncBackend.Snapshot finalSnapshot = snapshot;
+            List<SyncBackend.Delta> finalDeltas = deltas;
+            server.execute(() -> {
+                polling = false;
+                apply(finalSnapshot, finalDeltas);
+            });
+        });
+    }
+
+    private void apply(SyncBackend.Snapshot snapshot, List<SyncBackend.Delta> deltas) {
+        if (snapshot != null) {
+            Config config = ConfigLoader.config().copy();
+            config.blacklist.teams = snapshot.teams();
+            config.players = snapshot.players();
+            try {
+                ConfigCodec.validate(config);
+            } catch (JsonParseException e) {
+                ItemsBegone.LOGGER.warn("Sync snapshot {} is malformed, ignoring it: {}", snapshot.version(), e.getMessage());
+                return;
+            }
+            ConfigLoader.publish(ConfigCodec.write(config), config, BlacklistIndex.compile(config));
+            ConfigLoader.saveConfig();
+            snapshotVersion = snapshot.version();
+            setApplied(snapshot.version());
+            ItemsBegone.LOGGER.info("Loaded sync snapshot {} ({} teams).", snapshot.version(), config.blacklist.teams.size());
+        }
+
+        if (applied < 0) {
+            setApplied(0);
+        }
+
+        List<ConfigEdit> edits = new ArrayList<>();
+        long version = applied;
+        for (SyncBackend.Delta delta : deltas) {
+            if (delta.version() > version) {
+                edits.addAll(delta.edits());
+                version = delta.version();
+            }
+        }
+        if (version == applied) {
+            return;
+        }
+
+        EditBatch.Result result = EditBatch.apply(edits, new ArrayList<>());
+        for (String rejected : result.rejected()) {
+            ItemsBegone.LOGGER.warn("Skipped a synced edit: {}", rejected);
+        }
+        setApplied(version);
+
+        if (applied - snapshotVersion >= settings.compact_after) {
+            snapshotVersion = applied;
+            executor.execute(this::compact);
+        }
+    }
+
+    /**
+     * Folds the log into a new snapshot. The snapshot is rebuilt by replaying the deltas onto the previous one,
+     * never taken from the local config, which may also hold edits that are not in the log (ones that failed to
+     * push, hand edits picked up by the {@link ConfigWatcher}, or pushes that haven't been applied in order yet).
+     * Runs on the sync thread.
+     */
+    private void compact() {
+        try {
+            SyncBackend.Snapshot base = backend.snapshot();
+            List<SyncBackend.Delta> deltas = base == null ? null : backend.since(base.version());
+            // No snapshot means the log has no known starting point, and null deltas that another node compacted first.
+            if (deltas == null || deltas.size() < settings.compact_after) {
+                if (base != null) {
+                    server.execute(() -> snapshotVersion = Math.max(snapshotVersion, base.version()));
+                }
+                return;
+            }
+
+            Config config = new Config(new Config.TeamList(base.teams()), false);
+            if (base.players() != null) {
+                config.players = base.players();
+            }
+            ConfigCodec.validate(config);
+            List<ConfigEdit> edits = new ArrayList<>();
+            deltas.forEach(delta -> edits.addAll(delta.edits()));
+            // Every node skips the same invalid edits, so the snapshot matches what they all have applied.
+            EditBatch.applyTo(config, edits, new ArrayList<>());
+
+            long version = deltas.get(deltas.size() - 1).version();
+            backend.compact(new SyncBackend.Snapshot(version, config.blacklist.teams, config.players));
+        } catch (IOException | RuntimeException e) {
+            ItemsBegone.LOGGER.warn("Failed to compact the sync log.", e);
+        }
+    }
+
+    /**
+     * @return The local lists, only used to seed a log that doesn't exist yet
+     */
+    private static SyncBackend.Snapshot seed() {
+        Config config = ConfigLoader.config().copy();
+        return new SyncBackend.Snapshot(0, config.blacklist.teams, config.players);
+    }
+
+    private void setApplied(long version) {
+        applied = version;
+        executor.execute(() -> {
+            try {
+                Files.writeString(STATE_PATH, Long.toString(version));
+            } catch (IOException e) {
+                ItemsBegone.LOGGER.warn("Failed to save the sync state, some edits may be applied again after a restart.", e);
+            }
+        });
+    }
+}
@@ -0,0 +1,170 @@
+package com.github.zeropointnothing;
+
+import com.github.zeropointnothing.core.Config;
+import com.github.zeropointnothing.core.ConfigCodec;
+import com.github.zeropointnothing.core.RuleSet;
+import com.google.gson.JsonParseException;
+import net.minecraft.server.MinecraftServer;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reloads the config whenever the file is changed on disk.
+ * <p>
+ * Parsing, validation and compiling all happen on the watcher thread. Only the finished config and index are handed
+ * to the server thread, where they are swapped in at once. A malformed file is reported and ignored, leaving the
+ * previous config in place.
+ */
+public final class ConfigWatcher implements Runnable {
+    /** How long the file has to stay untouched before it is read, so editors that write in several steps are ignored. */
+    private static final long SETTLE_MS = 200;
+
+    private static ConfigWatcher instance;
+
+    private final MinecraftServer server;
+    private final WatchService watchService;
+    private final Path file;
+    private final Thread thread;
+
+    private ConfigWatcher(MinecraftServer server, WatchService watchService, Path file) {
+        this.server = server;
+        this.watchService = watchService;
+        this.file = file;
+        this.thread = new Thread(this, "ItemsBegone Config Watcher");
+        this.thread.setDaemon(true);
+    }
+
+    public static synchronized void start(MinecraftServer server) {
+        if (instance != null) {
+            return;
+        }
+
+        Path path = ConfigLoader.configPath();
+        try {
+            WatchService watchService = path.getFileSystem().newWatchService();
+            path.getParent().register(
+                    watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY
+            );
+            instance = new ConfigWatcher(server, watchService, path);
+            instance.thread.start();
+        } catch (IOException e) {
+            ItemsBegone.LOGGER.warn("Unable to watch the config for changes, it will not be hot-reloaded!", e);
+        }
+    }
+
+    /**
+     * @return Whether outside edits to the file are being picked up
+     */
+    public static synchronized boolean isRunning() {
+        return instance != null;
+    }
+
+    public static synchronized void stop() {
+        if (instance == null) {
+            return;
+        }
+
+        try {
+            instance.watchService.close();
+            instance.thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (IOException e) {
+            ItemsBegone.LOGGER.warn("Failed to close the config watcher!", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        instance = null;
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                if (!touched(watchService.take())) {
+                    continue;
+                }
+                // Wait for the writes to settle before reading anything.
+                WatchKey key;
+                while ((key = watchService.poll(SETTLE_MS, TimeUnit.MILLISECONDS)) != null) {
+                    touched(key);
+                }
+                reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Server is stopping
+        }
+    }
+
+    private boolean touched(WatchKey key) {
+        boolean touched = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || file.getFileName().equals(event.context())) {
+                touched = true;
+            }
+        }
+        key.reset();
+        return touched;
+    }
+
+    private void reload() {
+        String json;
+        try {
+            json = Files.readString(file);
+        } catch (NoSuchFileException e) {
+            return; // Mid-rename, the next event will pick it up
+        } catch (IOException e) {
+            ItemsBegone.LOGGER.warn("Config was changed on disk, but could not be read!", e);
+            return;
+        }
+        if (json.equals(ConfigLoader.lastSyncedJson())) {
+            return; // One of our own saves
+        }
+
+        Config config;
+        RuleSet index;
+        try {
+            config = ConfigCodec.read(json);
+            index = BlacklistIndex.compile(config);
+        } catch (JsonParseException e) {
+            ItemsBegone.LOGGER.warn("Config was changed on disk, but is malformed! Keeping the current config: {}", e.getMessage());
+            return;
+        } catch (RuntimeException e) {
+            ItemsBegone.LOGGER.warn("Config was changed on disk, but could not be compiled! Keeping the current config.", e);
+            return;
+        }
+
+        server.execute(() -> publish(json, config, index));
+    }
+
+    /**
+     * Swaps in the config read from the file. Runs on the server thread, so no command can edit the config meanwhile.
+     * <p>
+     * Command edits may still be waiting in the {@link ConfigWriter}, or have been written after the file was read.
+     * Either way they were made to the config the file replaces, so the file wins: pending saves are dropped, and
+     * if one landed over the file's contents, those are written back.
+     */
+    private void publish(String json, Config config, RuleSet index) {
+        boolean dropped = ConfigWriter.discard();
+        String synced = ConfigLoader.lastSyncedJson();
+        String current;
+        try {
+            current = Files.readString(file);
+        } catch (IOException e) {
+            current = json;
+        }
+
+        ConfigLoader.reload(json, config, index);
+        if (!current.equals(json) && current.equals(synced)) {
+            ConfigLoader.saveConfig();
+            dropped = true;
+        }
+        if (dropped) {
+            ItemsBegone.LOGGER.warn(
+                    "The config was edited on disk while command edits were still being saved. Kept the file, and "
+                            + "discarded the command edits made since the last save."
+            );
+        }
+        ItemsBegone.LOGGER.info("Reloaded config from disk ({} teams).", config.blacklist.teams.size());
+    }
+}
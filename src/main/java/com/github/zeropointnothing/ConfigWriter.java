@@ -0,0 +1,138 @@
+package com.github.zeropointnothing;
+
+import com.github.zeropointnothing.core.Config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.*;
+
+/**
+ * Writes the config to disk on a background thread.
+ * <p>
+ * Saves are debounced: a write only happens once no new save has been requested for {@link #DEBOUNCE_MS}, or
+ * {@link #MAX_DELAY_MS} after the first pending one, whichever comes first. Only the newest snapshot is ever written,
+ * so a burst of commands costs a single write.
+ */
+public final class ConfigWriter {
+    private static final long DEBOUNCE_MS = 250;
+    private static final long MAX_DELAY_MS = 2000;
+
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ItemsBegone Config Writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // All guarded by the class lock.
+    private static Config pending;
+    private static ScheduledFuture<?> scheduled;
+    private static long firstRequest;
+    private static long lastRequest;
+
+    private ConfigWriter() {}
+
+    /**
+     * Queues a snapshot to be written.
+     * @param snapshot A config that will not be modified afterwards (see {@link Config#copy()})
+     */
+    public static synchronized void submit(Config snapshot) {
+        long now = System.nanoTime();
+        pending = snapshot;
+        lastRequest = now;
+        if (scheduled == null) {
+            firstRequest = now;
+            scheduled = EXECUTOR.schedule(ConfigWriter::run, DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes any pending snapshot immediately, blocking until it is on disk.
+     */
+    public static void flush() {
+        Config snapshot;
+        synchronized (ConfigWriter.class) {
+            snapshot = pending;
+            pending = null;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+                scheduled = null;
+            }
+        }
+        if (snapshot == null) {
+            return;
+        }
+
+        // Still go through the executor, so this can't overtake a write that is already running.
+        try {
+            EXECUTOR.submit(() -> write(snapshot)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            ItemsBegone.LOGGER.error("Failed to flush config!", e.getCause());
+        }
+    }
+
+    /**
+     * Drops any pending snapshot, then waits for a write that is already running to finish. Used when the file was
+     * edited by someone else, so an older snapshot doesn't get written over their edit.
+     * @return Whether a pending snapshot was dropped
+     */
+    public static boolean discard() {
+        boolean dropped;
+        synchronized (ConfigWriter.class) {
+            dropped = pending != null;
+            pending = null;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+                scheduled = null;
+            }
+        }
+
+        try {
+            EXECUTOR.submit(() -> {}).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        return dropped;
+    }
+
+    private static void run() {
+        Config snapshot;
+        synchronized (ConfigWriter.class) {
+            long now = System.nanoTime();
+            long quiet = now - lastRequest;
+            long debounce = TimeUnit.MILLISECONDS.toNanos(DEBOUNCE_MS);
+            if (quiet < debounce && now - firstRequest < TimeUnit.MILLISECONDS.toNanos(MAX_DELAY_MS)) {
+                scheduled = EXECUTOR.schedule(ConfigWriter::run, debounce - quiet, TimeUnit.NANOSECONDS);
+                return;
+            }
+            snapshot = pending;
+            pending = null;
+            scheduled = null;
+        }
+        if (snapshot != null) {
+            write(snapshot);
+        }
+    }
+
+    private static void write(Config snapshot) {
+        try {
+            // An outside edit that hasn't been reloaded yet is newer than this snapshot, let the ConfigWatcher have it.
+            // If the mod never read or wrote the file, there is nothing to compare it against.
+            String synced = ConfigLoader.lastSyncedJson();
+            if (ConfigWatcher.isRunning() && synced != null && Files.exists(ConfigLoader.configPath())
+                    && !Files.readString(ConfigLoader.configPath()).equals(synced)) {
+                ItemsBegone.LOGGER.warn(
+                        "The config was edited on disk since it was last saved. Kept the file, it will be reloaded and "
+                                + "the command edits made since the last save are discarded."
+                );
+                return;
+            }
+            ConfigLoader.writeConfig(snapshot);
+        } catch (IOException e) {
+            ItemsBegone.LOGGER.error("Failed to save config!", e);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.github.zeropointnothing;
+
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtHelper;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.WorldSavePath;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps denied stacks out of the world, instead of dropping them as item entities that pile up (and get picked up
+ * again) around players who keep running into the blacklist.
+ * <p>
+ * Every player has a vault, stored as a compressed NBT file in the world's {@code itemsbegone_vault} directory.
+ * Identical stacks are merged into one entry with a total count, so a vault only grows with the number of different
+ * items taken. Vaults are edited in memory on the server thread, and changed ones are written by a background thread
+ * every {@code save_interval_ticks}. Admins inspect and return items with {@code /ibg vault}.
+ */
+public final class ConfiscationVault {
+    private static final String DIR_NAME = "itemsbegone_vault";
+
+    private static ConfiscationVault instance;
+
+    /**
+     * A stack taken from a player, along with how many of it were taken.
+     * @param stack A single item of the stack, with its NBT
+     * @param count The total number of items
+     */
+    public record Entry(ItemStack stack, long count) {}
+
+    private final MinecraftServer server;
+    private final Path dir;
+    private final ExecutorService executor;
+
+    // Server thread only.
+    private final Map<UUID, List<Entry>> vaults = new HashMap<>();
+    private final Set<UUID> dirty = new HashSet<>();
+    private int ticks;
+
+    private ConfiscationVault(MinecraftServer server) {
+        this.server = server;
+        this.dir = server.getSavePath(WorldSavePath.ROOT).resolve(DIR_NAME);
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ItemsBegone Vault");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static synchronized void start(MinecraftServer server) {
+        if (instance == null) {
+            instance = new ConfiscationVault(server);
+        }
+    }
+
+    /**
+     * Writes every changed vault, blocking until they are on disk.
+     */
+    public static synchronized void stop() {
+        if (instance == null) {
+            return;
+        }
+
+        instance.save();
+        instance.executor.shutdown();
+        try {
+            if (!instance.executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                ItemsBegone.LOGGER.warn("Timed out saving confiscated items, some may be lost!");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        instance = null;
+    }
+
+    public static void tick(MinecraftServer server) {
+        ConfiscationVault vault = instance;
+        if (vault != null && ++vault.ticks >= BlacklistIndex.current().vault.save_interval_ticks) {
+            vault.ticks = 0;
+            vault.save();
+        }
+    }
+
+    /**
+     * Moves a stack into a player's vault. Falls back to dropping it if the vault isn't running. Must be called on the
+     * server thread.
+     * @param player The player the stack was taken from
+     * @param stack The stack, which is not modified
+     */
+    public static void confiscate(ServerPlayerEntity player, ItemStack stack) {
+        ConfiscationVault vault = instance;
+        if (vault == null) {
+            player.dropStack(stack.copy());
+            return;
+        }
+        if (stack.isEmpty()) {
+            return;
+        }
+
+        List<Entry> entries = vault.load(player.getUuid());
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            if (ItemStack.canCombine(entry.stack(), stack)) {
+                entries.set(i, new Entry(entry.stack(), entry.count() + stack.getCount()));
+                vault.dirty.add(player.getUuid());
+                return;
+            }
+        }
+        entries.add(new Entry(stack.copyWithCount(1), stack.getCount()));
+        vault.dirty.add(player.getUuid());
+    }
+
+    /**
+     * @param uuid The player's UUID
+     * @return A copy of the player's vault, or an empty list if the vault isn't running
+     */
+    public static List<Entry> list(UUID uuid) {
+        ConfiscationVault vault = instance;
+        return vault == null ? List.of() : List.copyOf(vault.load(uuid));
+    }
+
+    /**
+     * Removes an entry from a player's vault.
+     * @param uuid The player's UUID
+     * @param index The index of the entry, as shown by {@link #list(UUID)}
+     * @return The removed entry, or null if there was none at that index
+     */
+    public static Entry take(UUID uuid, int index) {
+        ConfiscationVault vault = instance;
+        if (vault == null) {
+            return null;
+        }
+        List<Entry> entries = vault.load(uuid);
+        if (index < 0 || index >= entries.size()) {
+            return null;
+        }
+        vault.dirty.add(uuid);
+        return entries.remove(index);
+    }
+
+    /**
+     * Empties a player's vault, destroying everything in it.
+     * @param uuid The player's UUID
+     * @return The number of entries removed
+     */
+    public static int clear(UUID uuid) {
+        ConfiscationVault vault = instance;
+        if (vault == null) {
+            return 0;
+        }
+        List<Entry> entries = vault.load(uuid);
+        int removed = entries.size();
+        entries.clear();
+        vault.dirty.add(uuid);
+        return removed;
+    }
+
+    /**
+     * Gets a player's vault, reading it from disk if it isn't loaded. The read is queued behind any pending write of
+     * the same vault, so it never sees an older file than what was last saved.
+     */
+    private List<Entry> load(UUID uuid) {
+        List<Entry> entries = vaults.get(uuid);
+        if (entries != null) {
+            return entries;
+        }
+
+        Path path = dir.resolve(uuid + ".dat");
+        try {
+            entries = executor.submit(() -> read(path)).get();
+        } catch (ExecutionException e) {
+            ItemsBegone.LOGGER.error("Failed to read the vault of {}, moving it aside!", uuid, e.getCause());
+            entries = new ArrayList<>();
+            try {
+                Files.move(path, path.resolveSibling(path.getFileName() + ".corrupt"), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException ignored) {
+                // The write of the empty vault will replace it instead
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            entries = new ArrayList<>();
+        }
+        vaults.put(uuid, entries);
+        return entries;
+    }
+
+    /**
+     * Queues a write of every changed vault, then unloads those of players that are offline.
+     */
+    private void save() {
+        for (UUID uuid : dirty) {
+            List<Entry> entries = vaults.get(uuid);
+            Path path = dir.resolve(uuid + ".dat");
+            NbtCompound nbt = entries.isEmpty() ? null : serialize(entries);
+            executor.execute(() -> {
+                try {
+                    write(path, nbt);
+                } catch (IOException e) {
+                    ItemsBegone.LOGGER.error("Failed to save the vault of {}!", uuid, e);
+                }
+            });
+        }
+        dirty.clear();
+        vaults.keySet().removeIf(uuid -> server.getPlayerManager().getPlayer(uuid) == null);
+    }
+
+    private static NbtCompound serialize(List<Entry> entries) {
+        NbtList items = new NbtList();
+        for (Entry entry : entries) {
+            NbtCompound item = entry.stack().writeNbt(new NbtCompound());
+            item.putLong("Count", entry.count());
+            items.add(item);
+        }
+        NbtCompound nbt = new NbtCompound();
+        NbtHelper.putDataVersion(nbt);
+        nbt.put("Items", items);
+        return nbt;
+    }
+
+    private static List<Entry> read(Path path) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        if (Files.notExists(path)) {
+            return entries;
+        }
+
+        NbtCompound nbt;
+        try (InputStream in = Files.newInputStream(path)) {
+            nbt = NbtIo.readCompressed(in);
+        }
+        NbtList items = nbt.getList("Items", NbtElement.COMPOUND_TYPE);
+        for (int i = 0; i < items.size(); i++) {
+            NbtCompound item = items.getCompound(i);
+            ItemStack stack = ItemStack.fromNbt(item);
+            // Counts are stored as a long, which ItemStack reads as a (possibly truncated) byte.
+            stack.setCount(1);
+            long count = item.getLong("Count");
+            if (stack.isEmpty() || count <= 0) {
+                ItemsBegone.LOGGER.warn("Skipping unknown item '{}' in vault {}.", item.getString("id"), path.getFileName());
+                continue;
+            }
+            entries.add(new Entry(stack, count));
+        }
+        return entries;
+    }
+
+    /**
+     * Writes a vault to a temporary file, then moves it over the real one. An empty vault deletes the file.
+     */
+    private static void write(Path path, NbtCompound nbt) throws IOException {
+        if (nbt == null) {
+            Files.deleteIfExists(path);
+            return;
+        }
+
+        Files.createDirectories(path.getParent());
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            NbtIo.writeCompressed(nbt, out);
+        }
+        try {
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
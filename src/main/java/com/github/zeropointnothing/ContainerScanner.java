@@ -0,0 +1,148 @@
+package com.github.zeropointnothing;
+
+import com.github.zeropointnothing.core.RuleSet;
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.item.ItemStack;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.ItemScatterer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.chunk.WorldChunk;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Removes blacklisted items from containers, checked against the 'global' rules.
+ * <p>
+ * Containers are queued by position as their chunks load, and scanned a few at a time on later ticks. The queue only
+ * holds positions, is dropped chunk by chunk as chunks unload, and never holds more than {@link #MAX_QUEUED}
+ * containers; anything left out is still unverified, so it is queued again the next time its chunk loads. Each
+ * container remembers the rules it was verified against (see {@link VerifiedContainer}), so one that hasn't changed
+ * since is never queued again, even across restarts.
+ */
+public final class ContainerScanner {
+    private static final int MAX_QUEUED = 16384;
+
+    private record ChunkKey(ServerWorld world, long chunk) {}
+
+    /** Queued container positions, by the chunk they are in, in the order the chunks loaded. */
+    private static final Map<ChunkKey, LongLinkedOpenHashSet> queue = new LinkedHashMap<>();
+    private static int queued;
+
+    private ContainerScanner() {}
+
+    public static void onChunkLoad(ServerWorld world, WorldChunk chunk) {
+        RuleSet index = BlacklistIndex.current();
+        if (!index.containers.enabled) {
+            return;
+        }
+
+        long fingerprint = index.global().fingerprint;
+        LongLinkedOpenHashSet positions = null;
+        for (BlockEntity blockEntity : chunk.getBlockEntities().values()) {
+            if (queued >= MAX_QUEUED) {
+                break;
+            }
+            if (blockEntity instanceof Inventory && ((VerifiedContainer) blockEntity).itemsbegone$getVerified() != fingerprint) {
+                if (positions == null) {
+                    positions = queue.computeIfAbsent(new ChunkKey(world, chunk.getPos().toLong()), k -> new LongLinkedOpenHashSet());
+                }
+                if (positions.add(blockEntity.getPos().asLong())) {
+                    queued++;
+                }
+            }
+        }
+    }
+
+    public static void onChunkUnload(ServerWorld world, WorldChunk chunk) {
+        LongLinkedOpenHashSet positions = queue.remove(new ChunkKey(world, chunk.getPos().toLong()));
+        if (positions != null) {
+            queued -= positions.size();
+        }
+    }
+
+    public static void tick(MinecraftServer server) {
+        if (queue.isEmpty()) {
+            return;
+        }
+        RuleSet index = BlacklistIndex.current();
+        if (!index.containers.enabled) {
+            clear();
+            return;
+        }
+
+        long deadline = System.nanoTime() + index.containers.max_micros_per_tick * 1000L;
+        Iterator<Map.Entry<ChunkKey, LongLinkedOpenHashSet>> chunks = queue.entrySet().iterator();
+        int scanned = 0;
+        while (chunks.hasNext() && scanned < index.containers.max_per_tick && System.nanoTime() <= deadline) {
+            Map.Entry<ChunkKey, LongLinkedOpenHashSet> entry = chunks.next();
+            ServerWorld world = entry.getKey().world();
+            LongLinkedOpenHashSet positions = entry.getValue();
+            while (!positions.isEmpty() && scanned < index.containers.max_per_tick && System.nanoTime() <= deadline) {
+                BlockPos pos = BlockPos.fromLong(positions.removeFirstLong());
+                queued--;
+                scanned++;
+                // Look the container up again, it may have been broken or replaced while it was waiting. Checking the
+                // chunk first makes sure this never loads one.
+                if (world.isChunkLoaded(pos) && world.getBlockEntity(pos) instanceof Inventory inventory) {
+                    scan(world, (BlockEntity) inventory, index);
+                }
+            }
+            if (positions.isEmpty()) {
+                chunks.remove();
+            }
+        }
+    }
+
+    public static void clear() {
+        queue.clear();
+        queued = 0;
+    }
+
+    private static void scan(ServerWorld world, BlockEntity blockEntity, RuleSet index) {
+        RuleSet.TeamRules rules = index.global();
+        VerifiedContainer verified = (VerifiedContainer) blockEntity;
+        if (verified.itemsbegone$getVerified() == rules.fingerprint) {
+            return;
+        }
+        if (blockEntity instanceof VerifiedContainer.Lootable lootable && lootable.itemsbegone$hasPendingLoot()) {
+            return; // Nothing in it yet, it'll be scanned the first time it loads after being opened
+        }
+
+        Inventory inventory = (Inventory) blockEntity;
+        BlockPos pos = blockEntity.getPos();
+        boolean changed = false;
+        for (int i = 0; i < inventory.size(); i++) {
+            ItemStack stack = inventory.getStack(i);
+            if (BlacklistIndex.isBlacklisted(rules, stack)) {
+                changed = true;
+                if (stack.getNbt() != null && !BlacklistIndex.deniesItem(rules, stack)) {
+                    // Only what it holds is blacklisted, keep the rest in place (see NestedContents)
+                    for (ItemStack removed : NestedContents.removeBlacklisted(rules, stack.getNbt())) {
+                        AuditLog.recordContainer(pos, removed);
+                        if (!index.deleteOnDeny) {
+                            ItemScatterer.spawn(world, pos.getX(), pos.getY(), pos.getZ(), removed);
+                        }
+                    }
+                    continue;
+                }
+                AuditLog.recordContainer(pos, stack);
+                inventory.setStack(i, ItemStack.EMPTY);
+                if (!index.deleteOnDeny) {
+                    ItemScatterer.spawn(world, pos.getX(), pos.getY(), pos.getZ(), stack);
+                }
+            }
+        }
+        if (changed) {
+            blockEntity.markDirty();
+        }
+        // After markDirty, which clears the stamp. The chunk has to be saved for the stamp to outlive a restart, even
+        // if nothing was removed.
+        verified.itemsbegone$setVerified(rules.fingerprint);
+        world.markDirty(pos);
+    }
+}
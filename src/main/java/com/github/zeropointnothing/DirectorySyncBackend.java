@@ -0,0 +1,154 @@
+package com.github.zeropointnothing;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * A {@link SyncBackend} kept in a directory every node can reach, such as a network share or a volume mounted into
+ * every container.
+ * <p>
+ * Each delta is its own file, named after its version. A version is claimed by hard-linking a fully written temporary
+ * file to its name, which fails if another node got there first, so no locking is needed and readers never see a
+ * partially written delta.
+ */
+public final class DirectorySyncBackend implements SyncBackend {
+    private static final Gson GSON = new Gson();
+    private static final String DELTA_SUFFIX = ".json";
+    private static final String SNAPSHOT = "snapshot.json";
+
+    private final Path directory;
+    private final Path deltas;
+    /** The highest version known to exist, so appends don't have to list the whole directory every time. */
+    private long head;
+
+    public DirectorySyncBackend(Path directory) throws IOException {
+        this.directory = directory;
+        this.deltas = directory.resolve("deltas");
+        Files.createDirectories(deltas);
+    }
+
+    @Override
+    public long append(String node, List<ConfigEdit> edits) throws IOException {
+        Path temp = Files.createTempFile(directory, "delta", ".tmp");
+        try {
+            // Compaction may have removed every delta, but their versions must still never be reused. Deltas are
+            // listed before the snapshot is read, as compaction writes the snapshot before deleting what it covers.
+            long latest = latest();
+            Snapshot snapshot = snapshot();
+            long version = Math.max(Math.max(head, latest), snapshot == null ? 0 : snapshot.version());
+            while (true) {
+                version++;
+                Files.writeString(temp, GSON.toJson(new Delta(version, node, edits)), StandardCharsets.UTF_8);
+                try {
+                    Files.createLink(deltaPath(version), temp);
+                } catch (FileAlreadyExistsException e) {
+                    continue; // Another node claimed it, try the next one
+                }
+
+                // A node may have compacted past this version while it was being claimed, in which case every node
+                // would ignore the delta. Give it up and claim one after the snapshot instead.
+                snapshot = snapshot();
+                if (snapshot != null && snapshot.version() >= version) {
+                    Files.deleteIfExists(deltaPath(version));
+                    version = snapshot.version();
+                    continue;
+                }
+                head = version;
+                return version;
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public List<Delta> since(long version) throws IOException {
+        Snapshot snapshot = snapshot();
+        if (snapshot != null && version < snapshot.version()) {
+            return null;
+        }
+
+        List<Delta> result = new ArrayList<>();
+        for (var entry : list().tailMap(version, false).entrySet()) {
+            if (entry.getKey() != version + result.size() + 1) {
+                break; // Never skip over a gap, the missing delta may still be on its way
+            }
+            result.add(read(entry.getValue(), Delta.class));
+        }
+        if (!result.isEmpty()) {
+            head = Math.max(head, result.get(result.size() - 1).version());
+        }
+        return result;
+    }
+
+    @Override
+    public Snapshot snapshot() throws IOException {
+        Path path = directory.resolve(SNAPSHOT);
+        return Files.exists(path) ? read(path, Snapshot.class) : null;
+    }
+
+    @Override
+    public void compact(Snapshot snapshot) throws IOException {
+        Snapshot current = snapshot();
+        if (current != null && snapshot.version() <= current.version()) {
+            return;
+        }
+
+        Path temp = Files.createTempFile(directory, SNAPSHOT, ".tmp");
+        Files.writeString(temp, GSON.toJson(snapshot), StandardCharsets.UTF_8);
+        try {
+            Files.move(temp, directory.resolve(SNAPSHOT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, directory.resolve(SNAPSHOT), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        for (Path path : list().headMap(snapshot.version(), true).values()) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private Path deltaPath(long version) {
+        return deltas.resolve("%020d%s".formatted(version, DELTA_SUFFIX));
+    }
+
+    private long latest() throws IOException {
+        TreeMap<Long, Path> all = list();
+        return all.isEmpty() ? 0 : all.lastKey();
+    }
+
+    /**
+     * @return Every delta file, by version
+     */
+    private TreeMap<Long, Path> list() throws IOException {
+        TreeMap<Long, Path> result = new TreeMap<>();
+        try (Stream<Path> files = Files.list(deltas)) {
+            files.forEach(path -> {
+                String name = path.getFileName().toString();
+                if (name.endsWith(DELTA_SUFFIX)) {
+                    try {
+                        result.put(Long.parseLong(name.substring(0, name.length() - DELTA_SUFFIX.length())), path);
+                    } catch (NumberFormatException e) {
+                        // Not one of ours
+                    }
+                }
+            });
+        }
+        return result;
+    }
+
+    private static <T> T read(Path path, Class<T> type) throws IOException {
+        try {
+            return GSON.fromJson(Files.readString(path, StandardCharsets.UTF_8), type);
+        } catch (JsonParseException e) {
+            throw new IOException("Malformed sync file " + path, e);
+        }
+    }
+}
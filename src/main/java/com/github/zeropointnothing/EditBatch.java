@@ -0,0 +1,317 @@
+package com.github.zeropointnothing;
+
+import com.github.zeropointnothing.core.Config;
+import com.github.zeropointnothing.core.RuleSet;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import net.minecraft.entity.Entity;
+import net.minecraft.item.Item;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.tag.TagKey;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.util.Identifier;
+
+import java.util.*;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Applies many {@link ConfigEdit}s at once: every edit is validated against the {@link RegistryIndex}, and the config
+ * is only recompiled and saved once at the end.
+ * <p>
+ * Batches can also be left open with {@code /ibg batch begin}, in which case the edit commands queue their edits here
+ * instead of applying them. An open batch is committed as a transaction: if any edit is invalid, nothing is applied.
+ * Lists applied in one go ({@code add_many}, imports) skip invalid entries and apply the rest instead.
+ * <p>
+ * Open batches belong to a player, or to the server console or RCON, and are discarded when the player leaves. Other
+ * sources, such as command blocks and functions, can't tell each other apart, so they can't open one.
+ */
+public class EditBatch {
+    private static final Map<String, EditBatch> OPEN = new HashMap<>();
+
+    private final List<ConfigEdit> edits = new ArrayList<>();
+
+    /**
+     * @param applied Edits that changed the config
+     * @param unchanged Edits that were already in effect
+     * @param rejected Why each invalid edit was skipped
+     */
+    public record Result(int applied, int unchanged, List<String> rejected) {}
+
+    public static void register() {
+        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) -> OPEN.remove(handler.getPlayer().getUuidAsString()));
+    }
+
+    /**
+     * @return The key the source's batch is stored under, or null if it can't have one
+     */
+    private static String key(ServerCommandSource source) {
+        Entity entity = source.getEntity();
+        if (entity != null) {
+            return entity.getUuidAsString();
+        }
+        // Only the console and RCON have the highest level without an entity, command blocks and functions never do.
+        return source.hasPermissionLevel(4) ? "@" + source.getName() : null;
+    }
+
+    /**
+     * @return Whether the source can open a batch
+     */
+    public static boolean canOpen(ServerCommandSource source) {
+        return key(source) != null;
+    }
+
+    public static EditBatch get(ServerCommandSource source) {
+        String key = key(source);
+        return key == null ? null : OPEN.get(key);
+    }
+
+    /**
+     * @return False if the source already has a batch open, or can't open one
+     */
+    public static boolean begin(ServerCommandSource source) {
+        String key = key(source);
+        return key != null && OPEN.putIfAbsent(key, new EditBatch()) == null;
+    }
+
+    /**
+     * Closes the source's batch without applying it.
+     * @return The closed batch, or null if none was open
+     */
+    public static EditBatch end(ServerCommandSource source) {
+        String key = key(source);
+        return key == null ? null : OPEN.remove(key);
+    }
+
+    public void add(ConfigEdit edit) {
+        edits.add(edit);
+    }
+
+    public void addAll(Collection<ConfigEdit> edits) {
+        this.edits.addAll(edits);
+    }
+
+    public int size() {
+        return edits.size();
+    }
+
+    /**
+     * Validates and applies the batch to {@link ConfigLoader#config()}, then commits it if anything changed. Unlike
+     * {@link #commit(List)}, this is all or nothing: the edits are tried on a copy of the config first, and if any is
+     * invalid the config is left untouched.
+     * @return What happened to the edits. If any was rejected, none was applied.
+     */
+    public Result commit() {
+        Result dryRun = applyTo(ConfigLoader.config().copy(), edits, new ArrayList<>());
+        if (!dryRun.rejected().isEmpty()) {
+            return new Result(0, 0, dryRun.rejected());
+        }
+        return commit(edits);
+    }
+
+    /**
+     * Validates and applies edits to {@link ConfigLoader#config()}, then commits it and shares it through the
+     * {@link ConfigSync} if anything changed.
+     * <p>
+     * Invalid edits are skipped rather than failing the whole batch.
+     * @param edits The edits to apply, in order
+     * @return What happened to the edits
+     */
+    public static Result commit(List<ConfigEdit> edits) {
+        List<ConfigEdit> changes = new ArrayList<>();
+        Result result = apply(edits, changes);
+        ConfigSync.push(changes);
+        return result;
+    }
+
+    /**
+     * Same as {@link #commit(List)}, but without sharing the changes. Used for edits that came from other servers.
+     * @param changes Receives the edits that changed the config
+     */
+    static Result apply(List<ConfigEdit> edits, List<ConfigEdit> changes) {
+        Result result = applyTo(ConfigLoader.config(), edits, changes);
+        if (result.applied() > 0) {
+            ConfigLoader.commitConfig();
+        }
+        return result;
+    }
+
+    /**
+     * Validates and applies edits to any config, without compiling or saving it. Only reads the registries, so it can
+     * be used off the server thread on a config nothing else is using (ex. to replay the sync log).
+     * @param config The config to edit
+     * @param changes Receives the edits that changed the config
+     */
+    static Result applyTo(Config config, List<ConfigEdit> edits, List<ConfigEdit> changes) {
+        Map<String, Config.TeamConfig> teams = new HashMap<>();
+        for (Config.TeamConfig team : config.blacklist.teams) {
+            teams.putIfAbsent(team.name, team);
+        }
+
+        // Work on sets, so thousands of edits don't turn into thousands of linear List scans.
+        Map<Config.TeamConfig, Set<String>> items = new HashMap<>();
+        Map<Config.TeamConfig, Set<String>> namespaces = new HashMap<>();
+        Map<Config.TeamConfig, Set<String>> tags = new HashMap<>();
+        Map<Config.TeamConfig, Set<String>> patterns = new HashMap<>();
+        Map<Config.PlayerOverride, Set<String>> allows = new HashMap<>();
+        Map<Config.PlayerOverride, Set<String>> denies = new HashMap<>();
+        RegistryIndex registry = RegistryIndex.get();
+
+        int applied = 0;
+        int unchanged = 0;
+        List<String> rejected = new ArrayList<>();
+        for (ConfigEdit edit : edits) {
+            if (edit.op().isPlayerOp()) {
+                String entry = normalizeEntry(edit.value(), registry);
+                if (entry == null) {
+                    rejected.add("Invalid entry '%s'".formatted(edit.value()));
+                    continue;
+                }
+                boolean add = edit.op() == ConfigEdit.Op.ADD_PLAYER_ALLOW || edit.op() == ConfigEdit.Op.ADD_PLAYER_DENY;
+                Config.PlayerOverride override = config.getPlayer(edit.team());
+                if (override == null) {
+                    if (!add) {
+                        unchanged++;
+                        continue;
+                    }
+                    override = new Config.PlayerOverride(edit.team(), new ArrayList<>(), new ArrayList<>());
+                    config.players.add(override);
+                }
+                Set<String> set = edit.op() == ConfigEdit.Op.ADD_PLAYER_ALLOW || edit.op() == ConfigEdit.Op.REMOVE_PLAYER_ALLOW
+                        ? allows.computeIfAbsent(override, o -> new LinkedHashSet<>(o.allow))
+                        : denies.computeIfAbsent(override, o -> new LinkedHashSet<>(o.deny));
+                if (add ? set.add(entry) : set.remove(entry)) {
+                    applied++;
+                    changes.add(edit);
+                } else {
+                    unchanged++;
+                }
+                continue;
+            }
+
+            Config.TeamConfig team = teams.get(edit.team());
+            if (team == null) {
+                rejected.add("No such team '%s'".formatted(edit.team()));
+                continue;
+            }
+
+            boolean changed;
+            switch (edit.op()) {
+                case ADD_ITEM, REMOVE_ITEM -> {
+                    Identifier id = Identifier.tryParse(edit.value());
+                    if (id == null || !Registries.ITEM.containsId(id)) {
+                        rejected.add("No such item '%s'".formatted(edit.value()));
+                        continue;
+                    }
+                    Set<String> set = items.computeIfAbsent(team, t -> new LinkedHashSet<>(t.item_blacklist));
+                    changed = edit.op() == ConfigEdit.Op.ADD_ITEM ? set.add(id.toString()) : set.remove(id.toString());
+                }
+                case ADD_NAMESPACE, REMOVE_NAMESPACE -> {
+                    if (!registry.hasNamespace(edit.value())) {
+                        rejected.add("No such namespace '%s'".formatted(edit.value()));
+                        continue;
+                    }
+                    Set<String> set = namespaces.computeIfAbsent(team, t -> new LinkedHashSet<>(t.namespace_blacklist));
+                    changed = edit.op() == ConfigEdit.Op.ADD_NAMESPACE ? set.add(edit.value()) : set.remove(edit.value());
+                }
+                case ADD_TAG, REMOVE_TAG -> {
+                    TagKey<Item> tag = BlacklistIndex.parseTag(edit.value());
+                    if (tag == null) {
+                        rejected.add("Invalid tag '%s'".formatted(edit.value()));
+                        continue;
+                    }
+                    // Unknown tags are allowed, they may come from a datapack that isn't loaded yet.
+                    String value = tag.id().toString();
+                    Set<String> set = tags.computeIfAbsent(team, t -> new LinkedHashSet<>(t.tag_blacklist));
+                    changed = edit.op() == ConfigEdit.Op.ADD_TAG ? set.add(value) : set.remove(value);
+                }
+                case ADD_PATTERN, REMOVE_PATTERN -> {
+                    try {
+                        RuleSet.compilePattern(edit.value());
+                    } catch (PatternSyntaxException e) {
+                        rejected.add("Invalid pattern '%s'".formatted(edit.value()));
+                        continue;
+                    }
+                    Set<String> set = patterns.computeIfAbsent(team, t -> new LinkedHashSet<>(t.pattern_blacklist));
+                    changed = edit.op() == ConfigEdit.Op.ADD_PATTERN ? set.add(edit.value()) : set.remove(edit.value());
+                }
+                case SET_ENABLED -> {
+                    boolean enabled = Boolean.parseBoolean(edit.value());
+                    changed = team.enabled != enabled;
+                    team.enabled = enabled;
+                }
+                default -> throw new IllegalStateException("Unhandled edit: " + edit);
+            }
+
+            if (changed) {
+                applied++;
+                changes.add(edit);
+            } else {
+                unchanged++;
+            }
+        }
+
+        items.forEach((team, set) -> team.item_blacklist = new ArrayList<>(set));
+        namespaces.forEach((team, set) -> team.namespace_blacklist = new ArrayList<>(set));
+        tags.forEach((team, set) -> team.tag_blacklist = new ArrayList<>(set));
+        patterns.forEach((team, set) -> team.pattern_blacklist = new ArrayList<>(set));
+        allows.forEach((override, set) -> override.allow = new ArrayList<>(set));
+        denies.forEach((override, set) -> override.deny = new ArrayList<>(set));
+        config.players.removeIf(override -> override.allow.isEmpty() && override.deny.isEmpty());
+        return new Result(applied, unchanged, rejected);
+    }
+
+    /**
+     * Validates a player override entry and puts it in the form it is stored in.
+     * @return The entry, or null if it is invalid
+     */
+    private static String normalizeEntry(String entry, RegistryIndex registry) {
+        Config.EntryKind kind = Config.EntryKind.of(entry);
+        String value = kind.value(entry);
+        return switch (kind) {
+            case ITEM -> {
+                Identifier id = Identifier.tryParse(value);
+                yield id != null && Registries.ITEM.containsId(id) ? id.toString() : null;
+            }
+            case NAMESPACE -> registry.hasNamespace(value) ? entry : null;
+            case TAG -> {
+                TagKey<Item> tag = BlacklistIndex.parseTag(value);
+                yield tag == null ? null : "#" + tag.id();
+            }
+            case PATTERN -> {
+                try {
+                    RuleSet.compilePattern(entry);
+                    yield entry;
+                } catch (PatternSyntaxException e) {
+                    yield null;
+                }
+            }
+        };
+    }
+
+    /**
+     * Reads edits for a team from a list file. Blank lines and lines starting with '//' are ignored, lines starting
+     * with '@' are namespaces, lines starting with '#' are tags, lines starting with 'regex:' or containing '*' or
+     * '?' are patterns, and everything else is an item id.
+     * @param lines The lines of the file
+     * @param team The team the edits apply to
+     * @param add Whether to add or remove the entries
+     * @return The edits, in file order
+     */
+    public static List<ConfigEdit> parseList(List<String> lines, String team, boolean add) {
+        List<ConfigEdit> edits = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            String entry = line.strip();
+            if (entry.isEmpty() || entry.startsWith("//")) {
+                continue;
+            }
+            Config.EntryKind kind = Config.EntryKind.of(entry);
+            ConfigEdit.Op op = switch (kind) {
+                case ITEM -> add ? ConfigEdit.Op.ADD_ITEM : ConfigEdit.Op.REMOVE_ITEM;
+                case NAMESPACE -> add ? ConfigEdit.Op.ADD_NAMESPACE : ConfigEdit.Op.REMOVE_NAMESPACE;
+                case TAG -> add ? ConfigEdit.Op.ADD_TAG : ConfigEdit.Op.REMOVE_TAG;
+                case PATTERN -> add ? ConfigEdit.Op.ADD_PATTERN : ConfigEdit.Op.REMOVE_PATTERN;
+            };
+            edits.add(new ConfigEdit(op, team, kind.value(entry)));
+        }
+        return edits;
+    }
+}
@@ -1,21 +1,26 @@
 package com.github.zeropointnothing;
 
+import com.github.zeropointnothing.core.RuleSet;
 import net.fabricmc.api.ModInitializer;
 
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerChunkEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import net.fabricmc.fabric.api.event.player.*;
 import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.inventory.Inventory;
 import net.minecraft.item.ItemStack;
-import net.minecraft.registry.Registries;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.scoreboard.AbstractTeam;
+import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.util.ActionResult;
 import net.minecraft.util.Hand;
-import net.minecraft.util.Identifier;
 import net.minecraft.util.TypedActionResult;
 import net.minecraft.world.World;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.*;
-
 public class ItemsBegone implements ModInitializer {
 	public static final String MOD_ID = "items-begone";
 	// This logger is used to write text to the console and the log file.
@@ -24,95 +29,236 @@ public class ItemsBegone implements ModInitializer {
 	public static final Logger LOGGER = LoggerFactory.getLogger(MOD_ID);
 
 	public static Boolean isBlacklisted(ItemStack stack, String team_name) {
-		Identifier id = Registries.ITEM.getId(stack.getItem());
-
-		boolean isBlacklistedTeam = ConfigLoader.CONFIG.blacklist.getTeam(team_name).enabled &&
-				(
-						ConfigLoader.CONFIG.blacklist.getTeam(team_name).namespace_blacklist.contains(id.getNamespace())
-								|| ConfigLoader.CONFIG.blacklist.getTeam(team_name).item_blacklist.contains(id.toString())
-				);
-		boolean isBlacklistedGlobal = ConfigLoader.CONFIG.blacklist.getTeam("global").enabled &&
-				(
-						ConfigLoader.CONFIG.blacklist.getTeam("global").item_blacklist.contains(id.toString())
-								|| ConfigLoader.CONFIG.blacklist.getTeam("global").namespace_blacklist.contains(id.getNamespace())
-				);
-
-		return isBlacklistedGlobal || isBlacklistedTeam;
+		return BlacklistIndex.isBlacklisted(BlacklistIndex.current().resolve(team_name), stack);
 	}
 
-	public static Boolean isBlacklistedNamespace(String namespace, String team_name) {
-		boolean isBlacklistedTeam = ConfigLoader.CONFIG.blacklist.getTeam(team_name).namespace_blacklist.contains(namespace);
-		boolean isBlacklistedGlobal = ConfigLoader.CONFIG.blacklist.getTeam("global").item_blacklist.contains(namespace);
-
-		return isBlacklistedGlobal || isBlacklistedTeam;
+	public static String getTeam(PlayerEntity player) {
+		AbstractTeam team = player.getScoreboardTeam();
+		return team == null ? "global" : team.getName(); // Player isn't on a team
 	}
 
-	public static String getTeam(PlayerEntity player) {
-		String team;
-		try {
-			team = Objects.requireNonNull(player.getScoreboardTeam()).getName();
-		} catch (NullPointerException e) { // Player isn't on a team
-			team = "global";
+	/**
+	 * Resolves the compiled rules that apply to a player: 'global', then their team, then their own override.
+	 * <p>
+	 * The result is cached on the player until the config is recompiled or any scoreboard team changes, so this is
+	 * safe to call from every interaction. Client-side players get {@link RuleSet.TeamRules#NONE}, as the client only
+	 * predicts denials (see {@link BlacklistPacket}) and the server decides.
+	 * @param player The player to resolve the rules of
+	 * @return The player's rules
+	 */
+	public static RuleSet.TeamRules getRules(PlayerEntity player) {
+		if (player.getWorld().isClient) {
+			return RuleSet.TeamRules.NONE;
 		}
+		PlayerState state = ((PlayerState.Holder) player).itemsbegone$getState();
+		RuleSet index = BlacklistIndex.current();
+		int epoch = PlayerState.teamEpoch();
 
-		return team;
+		RuleSet.TeamRules rules = state.rules;
+		if (rules == null || rules.version != index.version || state.rulesEpoch != epoch) {
+			rules = index.resolve(getTeam(player), player.getUuidAsString(), player.getGameProfile().getName());
+			state.rules = rules;
+			state.rulesEpoch = epoch;
+		}
+		return rules;
 	}
 
 	private static ActionResult checkActiveHand(PlayerEntity player, World world, Hand hand) {
-		String team = getTeam(player);
-
 		try {
+			RuleSet.TeamRules rules = getRules(player);
+			if (rules.empty) {
+				return ActionResult.PASS;
+			}
 			ItemStack holding = player.getStackInHand(hand);
-			boolean blacklisted = isBlacklisted(holding, team);
+			boolean blacklisted = BlacklistIndex.isBlacklisted(rules, holding);
 			if (blacklisted) {
-				LOGGER.info("Player '{}' attempted to use blacklisted item ({})!", player.getName(), holding);
-				// While we're here, drop every item that isn't blacklisted.
-				for (int i = 0; i < player.getInventory().size(); i++) {
-					ItemStack stack = player.getInventory().getStack(i);
-					if (isBlacklisted(stack, team)) {
-						if (!ConfigLoader.CONFIG.delete_on_deny) {
-							player.dropStack(stack.copy()); // Drop copy to avoid skipping next index
-						}
-						player.getInventory().setStack(i, ItemStack.EMPTY);
-					}
-				}
+				// While we're here, remove every other blacklisted item as well.
+				enforceInventory(player, rules, TrackedInventory.ALL_SLOTS, AuditLog.Action.USE);
 
 				return ActionResult.FAIL;
 			} else {
 				return ActionResult.PASS;
 			}
-		} catch (Config.NoSuchTeamException e) {
-			LOGGER.warn("Unable to determine the blacklist! Fix your config! Original error: ", e);
-			LOGGER.warn("Packet will be failed for safety...");
-			return ActionResult.FAIL;
 		} catch (RuntimeException e) {
 			throw new RuntimeException("An error occurred while checking the blacklist! Your config is likely misconfigured! Original error: ", e);
 		}
 	}
-	public static void checkInventory(PlayerEntity player) {
-		String team = getTeam(player);
-		ItemStack detected = null;
-
-		for (int i=0; i<player.getInventory().size(); i++) {
-			ItemStack stack = player.getInventory().getStack(i);
-			if (isBlacklisted(stack, team)) {
-				if (detected == null) {
-					detected = stack;
-				}
-				if (!ConfigLoader.CONFIG.delete_on_deny) {
-					player.dropStack(stack.copy());
-				}
-				player.getInventory().setStack(i, ItemStack.EMPTY);
+	/**
+	 * Removes blacklisted items from a player's inventory.
+	 * <p>
+	 * Only slots written to since the inventory was last verified against the player's current rules are looked at,
+	 * and nothing is done at all if the inventory hasn't changed.
+	 * @param player The player to check
+	 * @return Whether anything was removed
+	 */
+	public static boolean checkInventory(PlayerEntity player) {
+		return checkInventory(player, AuditLog.Action.PICKUP);
+	}
+
+	/**
+	 * Same as {@link #checkInventory(PlayerEntity)}, recording removals as the given action.
+	 * <p>
+	 * The rules identify both the player's team and the config version, so together with the inventory's change
+	 * counter they form the stamp that is compared here. A different team or config means every slot is checked.
+	 * @param player The player to check
+	 * @param action What to record removals as
+	 * @return Whether anything was removed
+	 */
+	public static boolean checkInventory(PlayerEntity player, AuditLog.Action action) {
+		RuleSet.TeamRules rules = getRules(player);
+		if (rules.empty) {
+			return false;
+		}
+		long dirty = ((TrackedInventory) player.getInventory()).itemsbegone$getDirtySlots(rules);
+		if (dirty == 0) {
+			return false;
+		}
+
+		return enforceInventory(player, rules, dirty, action);
+	}
+
+	/**
+	 * Checks every slot of a player's inventory, whether it is known to have changed or not. Used by the
+	 * {@link SweepScheduler} to catch items that got in through paths the mixins don't see, which is also why it
+	 * ignores the verified stamp.
+	 * @param player The player to check
+	 */
+	public static void sweepInventory(PlayerEntity player) {
+		RuleSet.TeamRules rules = getRules(player);
+		enforceInventory(player, rules, TrackedInventory.ALL_SLOTS, AuditLog.Action.SWEEP);
+		enforceEnderChest(player, rules, AuditLog.Action.SWEEP);
+	}
+
+	/**
+	 * Removes blacklisted items from a player's ender chest, unless it was already checked against their current rules.
+	 * @param player The player to check
+	 * @param action What to record removals as
+	 * @return Whether anything was removed
+	 */
+	public static boolean checkEnderChest(PlayerEntity player, AuditLog.Action action) {
+		RuleSet.TeamRules rules = getRules(player);
+		if (((PlayerState.Holder) player).itemsbegone$getState().enderChestRules == rules) {
+			return false;
+		}
+		return enforceEnderChest(player, rules, action);
+	}
+
+	private static boolean enforceEnderChest(PlayerEntity player, RuleSet.TeamRules rules, AuditLog.Action action) {
+		((PlayerState.Holder) player).itemsbegone$getState().enderChestRules = rules;
+		if (rules.empty) {
+			return false;
+		}
+		Inventory chest = player.getEnderChestInventory();
+		boolean removed = false;
+
+		for (int i = nextBlacklisted(chest, rules, TrackedInventory.ALL_SLOTS, 0); i >= 0; i = nextBlacklisted(chest, rules, TrackedInventory.ALL_SLOTS, i + 1)) {
+			ItemStack stack = chest.getStack(i);
+			removed = true;
+			if (removeContents(player, rules, stack, action)) {
+				chest.markDirty();
+				continue;
 			}
+			AuditLog.record(player, stack, action);
+			dispose(player, stack);
+			chest.setStack(i, ItemStack.EMPTY);
 		}
+		return removed;
+	}
 
-		if (detected != null) {
-			LOGGER.info("Player '{}' attempted to pick up blacklisted item ({})!", player.getName(), detected);
+	/**
+	 * Removes blacklisted items from the given slots, records them to the {@link AuditLog}, then marks the inventory
+	 * as verified.
+	 * @return Whether anything was removed
+	 */
+	private static boolean enforceInventory(PlayerEntity player, RuleSet.TeamRules rules, long slots, AuditLog.Action action) {
+		if (rules.empty) {
+			return false;
 		}
+		PlayerInventory inventory = player.getInventory();
+		boolean removed = false;
+
+		for (int i = nextBlacklisted(inventory, rules, slots, 0); i >= 0; i = nextBlacklisted(inventory, rules, slots, i + 1)) {
+			ItemStack stack = inventory.getStack(i);
+			removed = true;
+			if (removeContents(player, rules, stack, action)) {
+				inventory.markDirty();
+				continue;
+			}
+			AuditLog.record(player, stack, action);
+			dispose(player, stack);
+			inventory.setStack(i, ItemStack.EMPTY);
+		}
+		((TrackedInventory) inventory).itemsbegone$markVerified(rules);
+		return removed;
 	}
 
-	private static TypedActionResult<ItemStack> typed_checkEventCallback(PlayerEntity player, World world, Hand hand) {
+	/**
+	 * Takes the blacklisted items out of a stack that is allowed itself, but holds some (see {@link NestedContents}).
+	 * Each one is recorded and disposed of like any other denied stack, and the stack keeps everything else.
+	 * @param player The player holding the stack
+	 * @param rules The player's rules
+	 * @param stack A stack {@link BlacklistIndex#isBlacklisted} denied, edited in place
+	 * @param action What to record removals as
+	 * @return Whether the stack can be kept. If not, it is blacklisted itself, and the caller has to remove it whole.
+	 */
+	public static boolean removeContents(PlayerEntity player, RuleSet.TeamRules rules, ItemStack stack, AuditLog.Action action) {
+		NbtCompound nbt = stack.getNbt();
+		if (nbt == null || BlacklistIndex.deniesItem(rules, stack)) {
+			return false;
+		}
+		for (ItemStack removed : NestedContents.removeBlacklisted(rules, nbt)) {
+			AuditLog.record(player, removed, action);
+			dispose(player, removed);
+		}
+		return true;
+	}
+
+	/**
+	 * Gets rid of a denied stack: deleted if 'delete_on_deny' is set, otherwise moved into the player's
+	 * {@link ConfiscationVault} if it is enabled, or dropped at their feet. A copy is dropped, so the caller can still
+	 * clear the slot it came from.
+	 * @param player The player the stack was taken from
+	 * @param stack The denied stack, which is not modified
+	 */
+	public static void dispose(PlayerEntity player, ItemStack stack) {
+		RuleSet index = BlacklistIndex.current();
+		if (index.deleteOnDeny) {
+			return;
+		}
+		if (index.vault.enabled && player instanceof ServerPlayerEntity serverPlayer) {
+			ConfiscationVault.confiscate(serverPlayer, stack);
+		} else {
+			player.dropStack(stack.copy());
+		}
+	}
+
+	/**
+	 * Finds the next slot within a mask that holds a blacklisted stack. Only reads the inventory, so it can be used
+	 * (and benchmarked) on any inventory.
+	 * @param inventory The inventory to search
+	 * @param rules The rules to check against
+	 * @param slots A mask of {@link TrackedInventory#slotBit(int)}s to look at
+	 * @param from The first slot to look at
+	 * @return The index of the slot, or -1 if there is none
+	 */
+	public static int nextBlacklisted(Inventory inventory, RuleSet.TeamRules rules, long slots, int from) {
+		for (int i=from; i<inventory.size(); i++) {
+			if ((slots & TrackedInventory.slotBit(i)) != 0 && BlacklistIndex.isBlacklisted(rules, inventory.getStack(i))) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static ActionResult timed_checkEventCallback(Metrics.Hook hook, PlayerEntity player, World world, Hand hand) {
+		long start = Metrics.start();
 		ActionResult result = checkActiveHand(player, world, hand);
+		hook.probe.record(start, result == ActionResult.FAIL);
+		return result;
+	}
+
+	private static TypedActionResult<ItemStack> typed_checkEventCallback(PlayerEntity player, World world, Hand hand) {
+		ActionResult result = timed_checkEventCallback(Metrics.Hook.USE_ITEM, player, world, hand);
 		if (result == ActionResult.PASS) {
 			return TypedActionResult.pass(player.getStackInHand(hand));
 		} else if (result == ActionResult.FAIL) {
@@ -124,32 +270,53 @@ public class ItemsBegone implements ModInitializer {
 	@Override
 	public void onInitialize() {
 		Commands.register();
+		EditBatch.register();
+		PlayerEnforcer.register();
+		BlacklistSender.register();
 		ConfigLoader.loadConfig();
 		LOGGER.info("Hello Fabric world!");
-		LOGGER.info("Initialized Config with team values set to:");
-		for (Config.TeamConfig team : ConfigLoader.CONFIG.blacklist.teams) {
-			LOGGER.info("// {} // ({})", team.name, team.enabled ? "enabled" : "disabled");
-			LOGGER.info("// NAMESPACE: {}", team.namespace_blacklist);
-			LOGGER.info("// ITEM: {}", team.item_blacklist);
-		}
-
-		UseBlockCallback.EVENT.register((a1,a2,a3,a4) -> checkActiveHand(a1,a2,a3));
-		AttackBlockCallback.EVENT.register((a1,a2,a3,a4,a5) -> checkActiveHand(a1,a2,a3));
-		UseEntityCallback.EVENT.register((a1,a2,a3,a4,a5) -> checkActiveHand(a1,a2,a3));
-		AttackEntityCallback.EVENT.register((a1,a2,a3,a4,a5) -> checkActiveHand(a1,a2,a3));
-		UseItemCallback.EVENT.register(ItemsBegone::typed_checkEventCallback);
-
 
+		// Other mods may still be registering items during their own initialization, so compile (or load the cached
+		// rules) once the registries are frozen.
+		ServerLifecycleEvents.SERVER_STARTING.register(server -> {
+			RegistryIndex.rebuild();
+			ConfigLoader.loadRules();
+		});
+		// Tag rules depend on datapack contents.
+		ServerLifecycleEvents.END_DATA_PACK_RELOAD.register((server, resourceManager, success) -> {
+			if (success) {
+				ConfigLoader.recompile();
+			}
+		});
+		ServerLifecycleEvents.SERVER_STARTED.register(server -> {
+			ConfigWatcher.start(server);
+			ConfigSync.start(server);
+			AuditLog.start();
+			ConfiscationVault.start(server);
+		});
+		ServerTickEvents.END_SERVER_TICK.register(SweepScheduler::tick);
+		ServerChunkEvents.CHUNK_LOAD.register(ContainerScanner::onChunkLoad);
+		ServerChunkEvents.CHUNK_UNLOAD.register(ContainerScanner::onChunkUnload);
+		ServerTickEvents.END_SERVER_TICK.register(ContainerScanner::tick);
+		ServerTickEvents.END_SERVER_TICK.register(ConfigSync::tick);
+		ServerTickEvents.END_SERVER_TICK.register(ConfiscationVault::tick);
+		ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
+			ConfigSync.stop();
+			ContainerScanner.clear();
+			// Config, audit log and vault saves happen in the background, make sure they land before the server goes away.
+			// The watcher stops after the last config save, so that one still can't overwrite an edit made on disk.
+			ConfigLoader.flushConfig();
+			ConfigWatcher.stop();
+			ConfigLoader.saveRules();
+			AuditLog.stop();
+			ConfiscationVault.stop();
+		});
 
-//		ServerTickEvents.END_SERVER_TICK.register((server) -> {
-//			if (++tickCounter % 40 != 0) return; // every ~2 seconds (20 ticks/sec)
-//
-//			for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
-////				Hand hand = player.getActiveHand();
-////				World world = player.getWorld();
-//
-//				checkInventory(player);
-//			}
-//		});
+		Metrics.registerJmx();
+		UseBlockCallback.EVENT.register((a1,a2,a3,a4) -> timed_checkEventCallback(Metrics.Hook.USE_BLOCK, a1,a2,a3));
+		AttackBlockCallback.EVENT.register((a1,a2,a3,a4,a5) -> timed_checkEventCallback(Metrics.Hook.ATTACK_BLOCK, a1,a2,a3));
+		UseEntityCallback.EVENT.register((a1,a2,a3,a4,a5) -> timed_checkEventCallback(Metrics.Hook.USE_ENTITY, a1,a2,a3));
+		AttackEntityCallback.EVENT.register((a1,a2,a3,a4,a5) -> timed_checkEventCallback(Metrics.Hook.ATTACK_ENTITY, a1,a2,a3));
+		UseItemCallback.EVENT.register(ItemsBegone::typed_checkEventCallback);
 	}
 }
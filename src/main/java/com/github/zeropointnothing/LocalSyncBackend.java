@@ -0,0 +1,74 @@
+package com.github.zeropointnothing;
+
+import com.github.zeropointnothing.core.Config;
+
+import java.util.*;
+
+/**
+ * A {@link SyncBackend} kept in memory, shared by every backend opened with the same channel name in this process.
+ * Lets sync be tested with several nodes in one JVM (ex. from a GameTest or a benchmark) without touching the disk.
+ */
+public final class LocalSyncBackend implements SyncBackend {
+    private static final Map<String, LocalSyncBackend> CHANNELS = new HashMap<>();
+
+    // All guarded by this.
+    private final List<Delta> deltas = new ArrayList<>();
+    private long head;
+    private Snapshot snapshot;
+
+    private LocalSyncBackend() {}
+
+    /**
+     * @param channel The name of the log to join
+     * @return The backend for the channel, created on first use
+     */
+    public static synchronized LocalSyncBackend open(String channel) {
+        return CHANNELS.computeIfAbsent(channel, c -> new LocalSyncBackend());
+    }
+
+    @Override
+    public synchronized long append(String node, List<ConfigEdit> edits) {
+        deltas.add(new Delta(++head, node, List.copyOf(edits)));
+        return head;
+    }
+
+    @Override
+    public synchronized List<Delta> since(long version) {
+        if (snapshot != null && version < snapshot.version()) {
+            return null;
+        }
+        List<Delta> result = new ArrayList<>();
+        for (Delta delta : deltas) {
+            if (delta.version() > version) {
+                result.add(delta);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized Snapshot snapshot() {
+        return snapshot == null ? null : copy(snapshot);
+    }
+
+    @Override
+    public synchronized void compact(Snapshot snapshot) {
+        if (this.snapshot != null && snapshot.version() <= this.snapshot.version()) {
+            return;
+        }
+        this.snapshot = copy(snapshot);
+        deltas.removeIf(delta -> delta.version() <= snapshot.version());
+    }
+
+    /**
+     * Nodes edit the lists they are given, so never hand out the stored ones.
+     */
+    private static Snapshot copy(Snapshot snapshot) {
+        Config config = new Config(new Config.TeamList(snapshot.teams()), false);
+        if (snapshot.players() != null) {
+            config.players = snapshot.players();
+        }
+        Config copy = config.copy();
+        return new Snapshot(snapshot.version(), copy.blacklist.teams, copy.players);
+    }
+}
@@ -0,0 +1,179 @@
+package com.github.zeropointnothing;
+
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call counts, deny counts and latency histograms for every enforcement entry point.
+ * <p>
+ * Latencies go into power-of-two nanosecond buckets, so recording a call is two {@link System#nanoTime()} reads and
+ * a few atomic increments. Percentiles are read back as the upper bound of their bucket, which is accurate to within
+ * 2x, plenty to tell whether the mod fits in a tick budget. Everything is exposed through {@code /ibg stats} and as
+ * JMX MBeans under {@value #JMX_DOMAIN}.
+ */
+public final class Metrics {
+    public static final String JMX_DOMAIN = "com.github.zeropointnothing.itemsbegone";
+    private static final int BUCKETS = 40; // 2^40ns is over 18 minutes
+
+    public enum Hook {
+        USE_BLOCK("use_block"),
+        ATTACK_BLOCK("attack_block"),
+        USE_ENTITY("use_entity"),
+        ATTACK_ENTITY("attack_entity"),
+        USE_ITEM("use_item"),
+        SLOT_CLICK_HEAD("slot_click_head"),
+        SLOT_CLICK_TAIL("slot_click_tail"),
+        INSERT_STACK("insert_stack"),
+        TAKE_ITEM("take_item"),
+        PICKUP("pickup"),
+        PLAYER_EVENT("player_event");
+
+        public final String id;
+        public final Probe probe = new Probe();
+
+        Hook(String id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * The JMX view of a {@link Probe}.
+     */
+    public interface ProbeMBean {
+        long getCalls();
+        long getDenies();
+        double getMeanMicros();
+        double getP50Micros();
+        double getP99Micros();
+        double getMaxMicros();
+        void reset();
+    }
+
+    public static final class Probe implements ProbeMBean {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder denies = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        /**
+         * @param start The {@link System#nanoTime()} the call started at
+         * @param denied Whether the call denied anything
+         */
+        public void record(long start, boolean denied) {
+            long nanos = System.nanoTime() - start;
+            calls.increment();
+            if (denied) {
+                denies.increment();
+            }
+            totalNanos.add(nanos);
+            buckets.incrementAndGet(Math.min(64 - Long.numberOfLeadingZeros(nanos), BUCKETS - 1));
+        }
+
+        @Override
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        @Override
+        public long getDenies() {
+            return denies.sum();
+        }
+
+        @Override
+        public double getMeanMicros() {
+            long calls = getCalls();
+            return calls == 0 ? 0 : totalNanos.sum() / (calls * 1000.0);
+        }
+
+        @Override
+        public double getP50Micros() {
+            return percentile(0.50);
+        }
+
+        @Override
+        public double getP99Micros() {
+            return percentile(0.99);
+        }
+
+        @Override
+        public double getMaxMicros() {
+            return percentile(1.0);
+        }
+
+        @Override
+        public void reset() {
+            calls.reset();
+            denies.reset();
+            totalNanos.reset();
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+        }
+
+        private double percentile(double percentile) {
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                total += buckets.get(i);
+            }
+            if (total == 0) {
+                return 0;
+            }
+
+            long target = (long) Math.ceil(total * percentile);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= target) {
+                    return (1L << i) / 1000.0; // Upper bound of bucket i is 2^i ns
+                }
+            }
+            return (1L << (BUCKETS - 1)) / 1000.0;
+        }
+    }
+
+    private Metrics() {}
+
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Registers every probe with the platform MBean server.
+     */
+    public static void registerJmx() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (Hook hook : Hook.values()) {
+            try {
+                ObjectName name = new ObjectName(JMX_DOMAIN + ":type=Hook,name=" + hook.id);
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(new StandardMBean(hook.probe, ProbeMBean.class), name);
+                }
+            } catch (JMException e) {
+                ItemsBegone.LOGGER.warn("Failed to register JMX metrics for '{}'!", hook.id, e);
+            }
+        }
+    }
+
+    /**
+     * @return A table of every probe, for {@code /ibg stats}
+     */
+    public static String summary() {
+        StringBuilder summary = new StringBuilder("// hook: calls / denies / mean / p50 / p99 / max (µs)\n");
+        for (Hook hook : Hook.values()) {
+            Probe probe = hook.probe;
+            summary.append("%s: %d / %d / %.2f / %.2f / %.2f / %.2f\n".formatted(
+                    hook.id, probe.getCalls(), probe.getDenies(), probe.getMeanMicros(),
+                    probe.getP50Micros(), probe.getP99Micros(), probe.getMaxMicros()
+            ));
+        }
+        return summary.toString().stripTrailing();
+    }
+
+    public static void reset() {
+        for (Hook hook : Hook.values()) {
+            hook.probe.reset();
+        }
+    }
+}
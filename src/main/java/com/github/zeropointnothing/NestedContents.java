@@ -0,0 +1,121 @@
+package com.github.zeropointnothing;
+
+import com.github.zeropointnothing.core.RuleSet;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.Identifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Looks inside items that carry other items, such as shulker boxes and bundles, so blacklisted items can't be
+ * smuggled past the checks inside them.
+ * <p>
+ * A container holding anything blacklisted is reported as blacklisted by {@link BlacklistIndex#isBlacklisted}, so
+ * every check notices it, but it is never removed for that alone: only the blacklisted entries are taken out (see
+ * {@link #removeBlacklisted}), and the container keeps the rest of its contents. An item that is blacklisted itself
+ * is still removed whole, along with anything it holds.
+ * <p>
+ * Contents are read straight from the NBT without creating stacks, down to {@link #MAX_DEPTH} levels. Verdicts are
+ * not cached: bundles change their contents list in place, so it can't be keyed by identity, and keying it by value
+ * costs a hash and an equals walk over the same entries the scan reads (see {@code NestedContentsBenchmark}).
+ */
+public final class NestedContents {
+    /** A shulker box holding bundles holding bundles. Vanilla can't nest any deeper than that. */
+    static final int MAX_DEPTH = 3;
+
+    private NestedContents() {}
+
+    /**
+     * @param rules The rules to check against
+     * @param nbt The NBT of the stack that may hold other items
+     * @return Whether the stack holds a blacklisted item at any depth
+     */
+    public static boolean containsBlacklisted(RuleSet.TeamRules rules, NbtCompound nbt) {
+        NbtList contents = contents(nbt);
+        return contents != null && !contents.isEmpty() && scan(rules, contents, 1);
+    }
+
+    /**
+     * Takes every blacklisted entry out of a stack's contents, at any depth. The stack's NBT is edited in place.
+     * @param rules The rules to check against
+     * @param nbt The NBT of the stack that may hold other items
+     * @return The removed entries, each as a stack of its own
+     */
+    public static List<ItemStack> removeBlacklisted(RuleSet.TeamRules rules, NbtCompound nbt) {
+        List<ItemStack> removed = new ArrayList<>();
+        NbtList contents = contents(nbt);
+        if (contents != null) {
+            remove(rules, contents, 1, removed);
+        }
+        return removed;
+    }
+
+    private static void remove(RuleSet.TeamRules rules, NbtList contents, int depth, List<ItemStack> removed) {
+        for (int i = 0; i < contents.size(); ) {
+            NbtCompound entry = contents.getCompound(i);
+            if (denied(rules, entry)) {
+                removed.add(ItemStack.fromNbt(entry));
+                contents.remove(i);
+                continue;
+            }
+            if (depth < MAX_DEPTH && entry.contains("tag", NbtElement.COMPOUND_TYPE)) {
+                NbtList inner = contents(entry.getCompound("tag"));
+                if (inner != null) {
+                    remove(rules, inner, depth + 1, removed);
+                }
+            }
+            i++;
+        }
+    }
+
+    private static boolean scan(RuleSet.TeamRules rules, NbtList contents, int depth) {
+        for (int i = 0; i < contents.size(); i++) {
+            NbtCompound entry = contents.getCompound(i);
+            if (denied(rules, entry)) {
+                return true;
+            }
+            if (depth < MAX_DEPTH && entry.contains("tag", NbtElement.COMPOUND_TYPE)) {
+                NbtList inner = contents(entry.getCompound("tag"));
+                if (inner != null && scan(rules, inner, depth + 1)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return Whether the item of an entry is blacklisted itself, regardless of what it holds
+     */
+    private static boolean denied(RuleSet.TeamRules rules, NbtCompound entry) {
+        Identifier id = Identifier.tryParse(entry.getString("id"));
+        if (id == null) {
+            return false;
+        }
+        int rawId = Registries.ITEM.getRawId(Registries.ITEM.get(id));
+        return rules.isBlacklisted(rawId) || (rules.hasDataRules(rawId) && rules.matchesData(rawId, ItemStack.fromNbt(entry)));
+    }
+
+    /**
+     * @return The list of items stored in a stack's NBT, or null if it doesn't store any
+     */
+    private static NbtList contents(NbtCompound nbt) {
+        // Block items that keep their inventory, such as shulker boxes
+        if (nbt.contains("BlockEntityTag", NbtElement.COMPOUND_TYPE)) {
+            NbtCompound blockEntity = nbt.getCompound("BlockEntityTag");
+            if (blockEntity.contains("Items", NbtElement.LIST_TYPE)) {
+                return blockEntity.getList("Items", NbtElement.COMPOUND_TYPE);
+            }
+        }
+        // Bundles
+        if (nbt.contains("Items", NbtElement.LIST_TYPE)) {
+            return nbt.getList("Items", NbtElement.COMPOUND_TYPE);
+        }
+        return null;
+    }
+}
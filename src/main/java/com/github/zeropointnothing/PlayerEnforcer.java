@@ -0,0 +1,73 @@
+package com.github.zeropointnothing;
+
+import net.fabricmc.fabric.api.entity.event.v1.ServerEntityWorldChangeEvents;
+import net.fabricmc.fabric.api.entity.event.v1.ServerPlayerEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Enforces the blacklist at the moments a player's rules or inventory can change wholesale: joining, respawning,
+ * changing dimension and changing scoreboard team.
+ * <p>
+ * Each of these goes through {@link ItemsBegone#checkInventory(PlayerEntity, AuditLog.Action)} and
+ * {@link ItemsBegone#checkEnderChest(PlayerEntity, AuditLog.Action)}, so an inventory still verified against the
+ * player's current rules is skipped outright. Changing dimension with the same team and an untouched inventory costs
+ * nothing.
+ */
+public final class PlayerEnforcer {
+    /**
+     * Players whose team changed, checked at the end of the tick. Moving a player between teams removes and then
+     * adds them, and commands can move many at once, so this collapses all of that into one check per player.
+     * Written by the {@code mixin.Scoreboard} mixin, which in singleplayer is also reached from the client thread.
+     */
+    private static final Set<String> TEAM_CHANGES = ConcurrentHashMap.newKeySet();
+
+    private PlayerEnforcer() {}
+
+    public static void register() {
+        ServerPlayConnectionEvents.JOIN.register((handler, sender, server) ->
+                enforce(handler.player, AuditLog.Action.JOIN)
+        );
+        ServerPlayerEvents.AFTER_RESPAWN.register((oldPlayer, newPlayer, alive) ->
+                enforce(newPlayer, AuditLog.Action.RESPAWN)
+        );
+        ServerEntityWorldChangeEvents.AFTER_PLAYER_CHANGE_WORLD.register((player, origin, destination) ->
+                enforce(player, AuditLog.Action.WORLD_CHANGE)
+        );
+        ServerTickEvents.END_SERVER_TICK.register(PlayerEnforcer::tick);
+    }
+
+    /**
+     * Queues a player to be checked once the current tick ends.
+     * @param playerName The scoreboard name of the player whose team changed
+     */
+    public static void teamChanged(String playerName) {
+        TEAM_CHANGES.add(playerName);
+    }
+
+    private static void tick(MinecraftServer server) {
+        if (TEAM_CHANGES.isEmpty()) {
+            return;
+        }
+        for (Iterator<String> it = TEAM_CHANGES.iterator(); it.hasNext(); ) {
+            ServerPlayerEntity player = server.getPlayerManager().getPlayer(it.next());
+            it.remove();
+            if (player != null) {
+                enforce(player, AuditLog.Action.TEAM_CHANGE);
+            }
+        }
+    }
+
+    private static void enforce(ServerPlayerEntity player, AuditLog.Action action) {
+        long start = Metrics.start();
+        boolean denied = ItemsBegone.checkInventory(player, action) | ItemsBegone.checkEnderChest(player, action);
+        Metrics.Hook.PLAYER_EVENT.probe.record(start, denied);
+    }
+}
@@ -0,0 +1,46 @@
+package com.github.zeropointnothing;
+
+import com.github.zeropointnothing.core.RuleSet;
+
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-player bookkeeping, attached to every {@link net.minecraft.entity.player.PlayerEntity} by the
+ * {@code mixin.PlayerEntity} mixin.
+ */
+public class PlayerState {
+    /**
+     * Bumped by the {@code mixin.Scoreboard} mixin whenever a player joins or leaves a team, or a team is removed.
+     * Team changes are rare enough that invalidating everybody is cheaper than tracking them by name.
+     */
+    private static final AtomicInteger TEAM_EPOCH = new AtomicInteger();
+
+    public interface Holder {
+        PlayerState itemsbegone$getState();
+    }
+
+    RuleSet.TeamRules rules;
+    int rulesEpoch;
+    /**
+     * The rules the ender chest was last checked against. Items can only get in through the checked cursor, so it
+     * only needs another look when the rules change.
+     */
+    RuleSet.TeamRules enderChestRules;
+    /** The denied items this player's client was last sent, see {@link BlacklistSender}. */
+    BitSet syncedDenied;
+
+    // Audit rate limiting, see AuditLog.record
+    long auditWindowStart;
+    int auditEvents;
+    int auditSuppressed;
+
+    public static int teamEpoch() {
+        return TEAM_EPOCH.get();
+    }
+
+    public static void invalidateTeams() {
+        TEAM_EPOCH.incrementAndGet();
+        BlacklistSender.markDirty();
+    }
+}
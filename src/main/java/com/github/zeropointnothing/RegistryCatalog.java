@@ -0,0 +1,73 @@
+package com.github.zeropointnothing;
+
+import com.github.zeropointnothing.core.DataPredicate;
+import com.github.zeropointnothing.core.ItemCatalog;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtHelper;
+import net.minecraft.nbt.StringNbtReader;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.tag.TagKey;
+import net.minecraft.util.Identifier;
+
+import java.util.stream.StreamSupport;
+
+/**
+ * The live item registry as an {@link ItemCatalog}. Tags only have contents once datapacks are loaded, which is why
+ * rules are also recompiled on reload.
+ */
+final class RegistryCatalog implements ItemCatalog {
+    static final RegistryCatalog INSTANCE = new RegistryCatalog();
+
+    private RegistryCatalog() {}
+
+    @Override
+    public int size() {
+        return Registries.ITEM.size();
+    }
+
+    @Override
+    public String id(int rawId) {
+        // Raw ids of the item registry are dense, so every id below size() has an item.
+        return Registries.ITEM.getId(Registries.ITEM.get(rawId)).toString();
+    }
+
+    @Override
+    public int rawId(String id) {
+        Identifier identifier = Identifier.tryParse(id);
+        if (identifier == null || !Registries.ITEM.containsId(identifier)) {
+            return -1;
+        }
+        return Registries.ITEM.getRawId(Registries.ITEM.get(identifier));
+    }
+
+    @Override
+    public int[] tag(String tag) {
+        TagKey<Item> key = BlacklistIndex.parseTag(tag);
+        if (key == null) {
+            return new int[0];
+        }
+        return StreamSupport.stream(Registries.ITEM.iterateEntries(key).spliterator(), false)
+                .mapToInt(entry -> Registries.ITEM.getRawId(entry.value()))
+                .toArray();
+    }
+
+    @Override
+    public DataPredicate data(String nbt) {
+        NbtCompound expected;
+        try {
+            expected = StringNbtReader.parse(nbt);
+        } catch (CommandSyntaxException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+        return stack -> NbtHelper.matches(expected, ((ItemStack) stack).getNbt(), true);
+    }
+
+    @Override
+    public int empty() {
+        return Registries.ITEM.getRawId(Items.AIR);
+    }
+}
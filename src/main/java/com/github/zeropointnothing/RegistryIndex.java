@@ -0,0 +1,139 @@
+package com.github.zeropointnothing;
+
+import net.minecraft.registry.Registries;
+import net.minecraft.util.Identifier;
+
+import java.util.*;
+
+/**
+ * Sorted lookup tables over {@link Registries#ITEM}, built once after the registries are frozen.
+ * <p>
+ * Prefix queries binary search for the start of the matching range and walk it, which gives the same answers as a
+ * prefix trie without a node per character. Ids are kept sorted twice: by full id, and by path, so "dia" finds
+ * "minecraft:diamond" the same way vanilla suggestions do.
+ */
+public final class RegistryIndex {
+    private static volatile RegistryIndex instance;
+
+    private final String[] namespaces;
+    private final String[] ids;
+    private final String[] paths;
+    private final String[] pathIds;
+
+    private RegistryIndex(String[] namespaces, String[] ids, String[] paths, String[] pathIds) {
+        this.namespaces = namespaces;
+        this.ids = ids;
+        this.paths = paths;
+        this.pathIds = pathIds;
+    }
+
+    public static RegistryIndex get() {
+        RegistryIndex index = instance;
+        if (index == null) {
+            index = rebuild();
+        }
+        return index;
+    }
+
+    /**
+     * Rebuilds the index from the current contents of the item registry.
+     */
+    public static RegistryIndex rebuild() {
+        List<Identifier> all = new ArrayList<>(Registries.ITEM.getIds());
+
+        TreeSet<String> namespaces = new TreeSet<>();
+        String[] ids = new String[all.size()];
+        for (int i = 0; i < all.size(); i++) {
+            namespaces.add(all.get(i).getNamespace());
+            ids[i] = all.get(i).toString();
+        }
+        Arrays.sort(ids);
+
+        all.sort(Comparator.comparing(Identifier::getPath).thenComparing(Identifier::getNamespace));
+        String[] paths = new String[all.size()];
+        String[] pathIds = new String[all.size()];
+        for (int i = 0; i < all.size(); i++) {
+            paths[i] = all.get(i).getPath();
+            pathIds[i] = all.get(i).toString();
+        }
+
+        RegistryIndex index = new RegistryIndex(namespaces.toArray(String[]::new), ids, paths, pathIds);
+        instance = index;
+        return index;
+    }
+
+    public boolean hasNamespace(String namespace) {
+        return Arrays.binarySearch(namespaces, namespace) >= 0;
+    }
+
+    /**
+     * @param prefix The prefix to match
+     * @param limit The maximum amount of namespaces to return
+     * @return Namespaces starting with the prefix, in sorted order
+     */
+    public List<String> namespaces(String prefix, int limit) {
+        List<String> matches = new ArrayList<>(Math.min(limit, namespaces.length));
+        collect(namespaces, namespaces, prefix, limit, matches);
+        return matches;
+    }
+
+    /**
+     * Finds item ids matching a prefix. Prefixes containing ':' are matched against the full id, others against
+     * the namespace and the path.
+     * @param prefix The prefix to match
+     * @param limit The maximum amount of ids to return
+     * @return The matching ids, in sorted order
+     */
+    public List<String> items(String prefix, int limit) {
+        List<String> matches = new ArrayList<>();
+        collect(ids, ids, prefix, limit, matches);
+        if (prefix.indexOf(':') < 0 && matches.size() < limit) {
+            collect(paths, pathIds, prefix, limit, matches);
+            Set<String> unique = new TreeSet<>(matches);
+            matches.clear();
+            matches.addAll(unique);
+        }
+        return matches.size() > limit ? matches.subList(0, limit) : matches;
+    }
+
+    /**
+     * @return How many item ids match the prefix, using the same rules as {@link #items(String, int)}
+     */
+    public int countItems(String prefix) {
+        if (prefix.indexOf(':') >= 0) {
+            return count(ids, prefix);
+        }
+        // An id can only be counted twice if both its namespace and path start with the prefix, which is rare
+        // enough that the full search is cheaper than keeping a third table.
+        return items(prefix, Integer.MAX_VALUE).size();
+    }
+
+    private static void collect(String[] keys, String[] values, String prefix, int limit, List<String> into) {
+        for (int i = lowerBound(keys, prefix); i < keys.length && into.size() < limit && keys[i].startsWith(prefix); i++) {
+            into.add(values[i]);
+        }
+    }
+
+    private static int count(String[] keys, String prefix) {
+        int start = lowerBound(keys, prefix);
+        int i = start;
+        while (i < keys.length && keys[i].startsWith(prefix)) {
+            i++;
+        }
+        return i - start;
+    }
+
+    private static int lowerBound(String[] keys, String prefix) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
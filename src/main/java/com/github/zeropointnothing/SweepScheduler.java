@@ -0,0 +1,94 @@
+package com.github.zeropointnothing;
+
+import com.github.zeropointnothing.core.Config;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Periodically sweeps every online player's inventory, spread out over many ticks.
+ * <p>
+ * Each sweep cycle walks a snapshot of the player list in round-robin order. Every tick only visits as many players
+ * as are needed to finish the cycle within the configured interval, bounded by a per-tick player and time budget, so
+ * the cost per tick stays flat no matter how many players are online. When the server falls behind its target MSPT
+ * the interval is stretched to match.
+ */
+public final class SweepScheduler {
+    private static final List<ServerPlayerEntity> cycle = new ArrayList<>();
+    private static int cursor;
+    private static double owed;
+
+    private static long ticks;
+    private static long cycleStartTick;
+    private static long lastCycleTicks;
+    private static int completedCycles;
+    private static int interval;
+
+    private SweepScheduler() {}
+
+    public static void tick(MinecraftServer server) {
+        ticks++;
+        Config.SweepConfig config = BlacklistIndex.current().sweep;
+        if (!config.enabled) {
+            return;
+        }
+
+        interval = interval(server, config);
+        if (cursor >= cycle.size()) {
+            startCycle(server);
+            if (cycle.isEmpty()) {
+                return;
+            }
+        }
+
+        // Spread the cycle evenly across the interval, carrying the fractions over between ticks.
+        owed = Math.min(owed + (double) cycle.size() / interval, config.max_players_per_tick);
+        long deadline = System.nanoTime() + config.max_micros_per_tick * 1000L;
+        while (owed >= 1 && cursor < cycle.size()) {
+            ServerPlayerEntity player = cycle.get(cursor++);
+            owed--;
+            if (!player.isRemoved()) {
+                ItemsBegone.sweepInventory(player);
+            }
+            if (System.nanoTime() > deadline) {
+                break;
+            }
+        }
+
+        if (cursor >= cycle.size()) {
+            completedCycles++;
+            lastCycleTicks = ticks - cycleStartTick;
+        }
+    }
+
+    private static void startCycle(MinecraftServer server) {
+        cycle.clear();
+        cycle.addAll(server.getPlayerManager().getPlayerList());
+        cursor = 0;
+        cycleStartTick = ticks;
+    }
+
+    private static int interval(MinecraftServer server, Config.SweepConfig config) {
+        double load = server.getTickTime() / config.target_mspt;
+        if (load <= 1) {
+            return config.interval_ticks;
+        }
+        return (int) Math.min(config.interval_ticks * load, config.max_interval_ticks);
+    }
+
+    /**
+     * @return A human-readable summary of how far the current sweep cycle has progressed
+     */
+    public static String status() {
+        Config.SweepConfig config = BlacklistIndex.current().sweep;
+        if (!config.enabled) {
+            return "Inventory sweep is disabled.";
+        }
+        return "Cycle #%d: %d/%d players swept, interval %d ticks (base %d), last cycle took %d ticks.".formatted(
+                completedCycles + 1, Math.min(cursor, cycle.size()), cycle.size(), interval, config.interval_ticks,
+                lastCycleTicks
+        );
+    }
+}
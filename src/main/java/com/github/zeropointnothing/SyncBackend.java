@@ -0,0 +1,59 @@
+package com.github.zeropointnothing;
+
+import com.github.zeropointnothing.core.Config;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A change log of blacklist edits shared between servers (see {@link ConfigSync}).
+ * <p>
+ * Every change is a numbered {@link Delta}. Versions are assigned by the backend and never reused, so every node
+ * applies the same changes in the same order. Old deltas are eventually compacted into a {@link Snapshot}, which is
+ * what a node that has fallen too far behind (or has just joined) starts from.
+ * <p>
+ * Calls may block on I/O, so they are only made from the sync thread.
+ */
+public interface SyncBackend extends Closeable {
+    /**
+     * @param version The position of this change in the log, starting at 1
+     * @param node The node that made the change
+     * @param edits The edits, already validated by that node
+     */
+    record Delta(long version, String node, List<ConfigEdit> edits) {}
+
+    /**
+     * @param version The last delta included in the snapshot
+     * @param teams The team lists after applying every delta up to it
+     * @param players The player overrides after applying every delta up to it. Null in snapshots taken before
+     *                overrides existed.
+     */
+    record Snapshot(long version, List<Config.TeamConfig> teams, List<Config.PlayerOverride> players) {}
+
+    /**
+     * Appends a change to the end of the log.
+     * @return The version the change was given
+     */
+    long append(String node, List<ConfigEdit> edits) throws IOException;
+
+    /**
+     * @param version The last version the caller has applied
+     * @return Every delta after it, in order, or null if some of them have already been compacted into the snapshot
+     */
+    List<Delta> since(long version) throws IOException;
+
+    /**
+     * @return The latest snapshot, or null if none has been taken yet
+     */
+    Snapshot snapshot() throws IOException;
+
+    /**
+     * Replaces the snapshot, if it is newer than the current one, and drops every delta it covers.
+     * @param snapshot The new snapshot
+     */
+    void compact(Snapshot snapshot) throws IOException;
+
+    @Override
+    default void close() throws IOException {}
+}
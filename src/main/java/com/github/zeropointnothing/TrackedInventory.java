@@ -0,0 +1,35 @@
+package com.github.zeropointnothing;
+
+import com.github.zeropointnothing.core.RuleSet;
+
+/**
+ * Slot change tracking for player inventories, implemented by the {@code mixin.PlayerInventory} mixin.
+ * <p>
+ * Slots are recorded in a bitmask as they are written through the set/insert paths. Slots past 63 all share the last
+ * bit, which never happens for a vanilla inventory.
+ */
+public interface TrackedInventory {
+    long ALL_SLOTS = -1L;
+
+    static long slotBit(int slot) {
+        return 1L << Math.min(slot, 63);
+    }
+
+    /**
+     * @param rules The rules the inventory is about to be checked against
+     * @return The slots that changed since the inventory was last verified, {@link #ALL_SLOTS} if it was last verified
+     * against different rules, or 0 if nothing changed at all
+     */
+    long itemsbegone$getDirtySlots(RuleSet.TeamRules rules);
+
+    /**
+     * Records the inventory's current contents as verified against the given rules.
+     * @param rules The rules the inventory was checked against
+     */
+    void itemsbegone$markVerified(RuleSet.TeamRules rules);
+
+    /**
+     * @return A counter that increases every time a slot is written to
+     */
+    int itemsbegone$getChangeCount();
+}
@@ -0,0 +1,28 @@
+package com.github.zeropointnothing;
+
+import com.github.zeropointnothing.core.RuleSet;
+
+/**
+ * Remembers which rules a block entity's contents were last verified against, implemented by the
+ * {@code mixin.BlockEntity} mixin. The stamp is saved with the block entity when its chunk is saved (see
+ * {@code mixin.WorldChunk}), and cleared whenever it is marked dirty.
+ */
+public interface VerifiedContainer {
+    String NBT_KEY = "itemsbegone:verified";
+
+    /**
+     * @return The {@link RuleSet.TeamRules#fingerprint} the contents were last verified against, or 0 if they
+     * have changed since
+     */
+    long itemsbegone$getVerified();
+
+    void itemsbegone$setVerified(long fingerprint);
+
+    /**
+     * Implemented by the {@code mixin.LootableContainerBlockEntity} mixin. Reading a slot of a container that still
+     * has a loot table generates its loot, which scanning must never do.
+     */
+    interface Lootable {
+        boolean itemsbegone$hasPendingLoot();
+    }
+}
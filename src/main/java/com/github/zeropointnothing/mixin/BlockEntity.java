@@ -0,0 +1,42 @@
+package com.github.zeropointnothing.mixin;
+
+import com.github.zeropointnothing.VerifiedContainer;
+import net.minecraft.block.BlockState;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.util.math.BlockPos;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(net.minecraft.block.entity.BlockEntity.class)
+public class BlockEntity implements VerifiedContainer {
+    @Unique private long itemsbegone$verified;
+
+    // Inventories mark themselves dirty whenever their contents change, hoppers included.
+    @Inject(method = "markDirty()V", at = @At("HEAD"))
+    private void onMarkDirty(CallbackInfo ci) {
+        itemsbegone$verified = 0;
+    }
+
+    // Only called when a chunk loads. The stamp is written by the WorldChunk mixin, so it never ends up in item NBT.
+    @Inject(method = "createFromNbt", at = @At("RETURN"))
+    private static void onCreateFromNbt(BlockPos pos, BlockState state, NbtCompound nbt, CallbackInfoReturnable<net.minecraft.block.entity.BlockEntity> cir) {
+        net.minecraft.block.entity.BlockEntity blockEntity = cir.getReturnValue();
+        if (blockEntity != null) {
+            ((VerifiedContainer) blockEntity).itemsbegone$setVerified(nbt.getLong(NBT_KEY));
+        }
+    }
+
+    @Override
+    public long itemsbegone$getVerified() {
+        return itemsbegone$verified;
+    }
+
+    @Override
+    public void itemsbegone$setVerified(long fingerprint) {
+        itemsbegone$verified = fingerprint;
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.zeropointnothing.mixin;
+
+import com.github.zeropointnothing.AuditLog;
+import com.github.zeropointnothing.BlacklistIndex;
+import com.github.zeropointnothing.ItemsBegone;
+import com.github.zeropointnothing.Metrics;
+import com.github.zeropointnothing.core.RuleSet;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NbtCompound;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(net.minecraft.entity.ItemEntity.class)
+public abstract class ItemEntity {
+    @Shadow public abstract ItemStack getStack();
+
+    // The last verdict, and what it was made for. A player standing on the item collides with it every tick,
+    // so this is usually a hit.
+    @Unique private RuleSet.TeamRules itemsbegone$checkedRules;
+    @Unique private Item itemsbegone$checkedItem;
+    @Unique private NbtCompound itemsbegone$checkedNbt; // Compared by reference, NBT rules may depend on it
+    @Unique private boolean itemsbegone$rejected;
+
+    // Refuse the pickup outright, instead of letting insertStack take the item only for checkInventory to drop it
+    // again, which the player would then pick up on the next tick.
+    @Inject(method = "onPlayerCollision", at = @At("HEAD"), cancellable = true)
+    private void onPlayerCollision(PlayerEntity player, CallbackInfo ci) {
+        if (player.getWorld().isClient) {
+            return;
+        }
+
+        long start = Metrics.start();
+        RuleSet.TeamRules rules = ItemsBegone.getRules(player);
+        if (rules.empty) {
+            Metrics.Hook.PICKUP.probe.record(start, false);
+            return;
+        }
+        ItemStack stack = this.getStack();
+        if (
+                rules != itemsbegone$checkedRules || stack.getItem() != itemsbegone$checkedItem
+                || stack.getNbt() != itemsbegone$checkedNbt
+        ) {
+            itemsbegone$checkedRules = rules;
+            itemsbegone$checkedItem = stack.getItem();
+            itemsbegone$checkedNbt = stack.getNbt();
+            // A container that only holds something blacklisted loses that, and can be picked up with the rest.
+            itemsbegone$rejected = BlacklistIndex.isBlacklisted(rules, stack)
+                    && !ItemsBegone.removeContents(player, rules, stack, AuditLog.Action.PICKUP);
+        }
+
+        if (itemsbegone$rejected) {
+            ci.cancel();
+        }
+        Metrics.Hook.PICKUP.probe.record(start, itemsbegone$rejected);
+    }
+}
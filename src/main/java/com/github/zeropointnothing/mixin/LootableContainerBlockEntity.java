@@ -0,0 +1,17 @@
+package com.github.zeropointnothing.mixin;
+
+import com.github.zeropointnothing.VerifiedContainer;
+import net.minecraft.util.Identifier;
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+
+@Mixin(net.minecraft.block.entity.LootableContainerBlockEntity.class)
+public abstract class LootableContainerBlockEntity implements VerifiedContainer.Lootable {
+    @Shadow @Nullable protected Identifier lootTableId;
+
+    @Override
+    public boolean itemsbegone$hasPendingLoot() {
+        return lootTableId != null;
+    }
+}
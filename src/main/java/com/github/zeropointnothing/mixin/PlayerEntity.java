@@ -0,0 +1,16 @@
+package com.github.zeropointnothing.mixin;
+
+import com.github.zeropointnothing.PlayerState;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+
+@Mixin(net.minecraft.entity.player.PlayerEntity.class)
+public class PlayerEntity implements PlayerState.Holder {
+    @Unique
+    private final PlayerState itemsbegone$state = new PlayerState();
+
+    @Override
+    public PlayerState itemsbegone$getState() {
+        return itemsbegone$state;
+    }
+}
@@ -1,23 +1,93 @@
 package com.github.zeropointnothing.mixin;
 
+import com.github.zeropointnothing.BlacklistIndex;
 import com.github.zeropointnothing.ItemsBegone;
+import com.github.zeropointnothing.Metrics;
+import com.github.zeropointnothing.TrackedInventory;
+import com.github.zeropointnothing.core.RuleSet;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.item.ItemStack;
 import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 @Mixin(net.minecraft.entity.player.PlayerInventory.class)
-public class PlayerInventory {
+public class PlayerInventory implements TrackedInventory {
     @Shadow @Final public PlayerEntity player;
 
+    @Unique private long itemsbegone$dirtySlots = ALL_SLOTS;
+    @Unique private int itemsbegone$changeCount;
+    @Unique private int itemsbegone$verifiedChangeCount = -1;
+    @Unique private RuleSet.TeamRules itemsbegone$verifiedRules;
+
     @Inject(method = "insertStack(Lnet/minecraft/item/ItemStack;)Z", at = @At("TAIL"))
     private void onInsertStack(ItemStack stack, CallbackInfoReturnable<Boolean> cir) {
         PlayerEntity player = this.player;
 
-        ItemsBegone.checkInventory(player);
+        long start = Metrics.start();
+        boolean denied = ItemsBegone.checkInventory(player);
+        Metrics.Hook.INSERT_STACK.probe.record(start, denied);
+    }
+
+    // The paths below are every way a new stack can land in a slot. Stacks that only grow through
+    // ItemStack.increment keep their item, so they can't turn a verified slot into a blacklisted one.
+    @Inject(method = "setStack", at = @At("HEAD"))
+    private void onSetStack(int slot, ItemStack stack, CallbackInfo ci) {
+        itemsbegone$markDirty(slot);
+    }
+
+    @Inject(method = "addStack(ILnet/minecraft/item/ItemStack;)I", at = @At("HEAD"))
+    private void onAddStack(int slot, ItemStack stack, CallbackInfoReturnable<Integer> cir) {
+        itemsbegone$markDirty(slot);
+    }
+
+    @Inject(method = "insertStack(ILnet/minecraft/item/ItemStack;)Z", at = @At("HEAD"))
+    private void onInsertStackAt(int slot, ItemStack stack, CallbackInfoReturnable<Boolean> cir) {
+        if (slot >= 0) {
+            itemsbegone$markDirty(slot);
+        }
+    }
+
+    // Damaged items are written straight into the main list at whatever slot this returns.
+    @Inject(method = "getEmptySlot", at = @At("RETURN"))
+    private void onGetEmptySlot(CallbackInfoReturnable<Integer> cir) {
+        int slot = cir.getReturnValueI();
+        if (slot >= 0) {
+            itemsbegone$markDirty(slot);
+        }
+    }
+
+    @Unique
+    private void itemsbegone$markDirty(int slot) {
+        itemsbegone$dirtySlots |= TrackedInventory.slotBit(slot);
+        itemsbegone$changeCount++;
+    }
+
+    @Override
+    public long itemsbegone$getDirtySlots(RuleSet.TeamRules rules) {
+        if (rules != itemsbegone$verifiedRules) {
+            return ALL_SLOTS;
+        }
+        if (itemsbegone$changeCount == itemsbegone$verifiedChangeCount) {
+            return 0;
+        }
+        return itemsbegone$dirtySlots;
+    }
+
+    @Override
+    public void itemsbegone$markVerified(RuleSet.TeamRules rules) {
+        itemsbegone$verifiedRules = rules;
+        itemsbegone$verifiedChangeCount = itemsbegone$changeCount;
+        itemsbegone$dirtySlots = 0;
+    }
+
+    @Override
+    public int itemsbegone$getChangeCount() {
+        return itemsbegone$changeCount;
     }
 }
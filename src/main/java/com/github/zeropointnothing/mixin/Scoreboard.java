@@ -0,0 +1,38 @@
+package com.github.zeropointnothing.mixin;
+
+import com.github.zeropointnothing.PlayerEnforcer;
+import com.github.zeropointnothing.PlayerState;
+import net.minecraft.scoreboard.Team;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(net.minecraft.scoreboard.Scoreboard.class)
+public class Scoreboard {
+    // Any of these can change which team a player resolves to, so drop every cached team lookup and recheck the
+    // players that moved.
+    @Inject(method = "addPlayerToTeam", at = @At("RETURN"))
+    private void onAddPlayerToTeam(String playerName, Team team, CallbackInfoReturnable<Boolean> cir) {
+        PlayerState.invalidateTeams();
+        PlayerEnforcer.teamChanged(playerName);
+    }
+
+    @Inject(method = "removePlayerFromTeam", at = @At("TAIL"))
+    private void onRemovePlayerFromTeam(String playerName, Team team, CallbackInfo ci) {
+        PlayerState.invalidateTeams();
+        PlayerEnforcer.teamChanged(playerName);
+    }
+
+    // The members are only known before the team is gone.
+    @Inject(method = "removeTeam", at = @At("HEAD"))
+    private void onRemoveTeamHead(Team team, CallbackInfo ci) {
+        team.getPlayerList().forEach(PlayerEnforcer::teamChanged);
+    }
+
+    @Inject(method = "removeTeam", at = @At("TAIL"))
+    private void onRemoveTeam(Team team, CallbackInfo ci) {
+        PlayerState.invalidateTeams();
+    }
+}
@@ -1,42 +1,75 @@
 package com.github.zeropointnothing.mixin;
 
-import com.github.zeropointnothing.ConfigLoader;
+import com.github.zeropointnothing.AuditLog;
+import com.github.zeropointnothing.BlacklistIndex;
 import com.github.zeropointnothing.ItemsBegone;
+import com.github.zeropointnothing.Metrics;
+import com.github.zeropointnothing.core.RuleSet;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.item.ItemStack;
 import net.minecraft.screen.slot.SlotActionType;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 @Mixin(net.minecraft.screen.ScreenHandler.class)
 public abstract class ScreenHandler {
+    @Shadow protected abstract void endQuickCraft();
+
     // TAIL event fires AFTER player clicks, allowing us to monitor PICK UP events
     // to be more specific, it utilizes the fact that the item is in the user's cursor at this point
     @Inject(method = "onSlotClick", at = @At("TAIL"))
     private void onSlotClick(int slotIndex, int button, SlotActionType actionType, PlayerEntity player, CallbackInfo ci) {
-        String team = ItemsBegone.getTeam(player);
+        // A drag was already checked once, as a whole, when it ended (see below).
+        if (actionType == SlotActionType.QUICK_CRAFT) {
+            return;
+        }
+        long start = Metrics.start();
+        RuleSet.TeamRules rules = ItemsBegone.getRules(player);
+        if (rules.empty) {
+            Metrics.Hook.SLOT_CLICK_TAIL.probe.record(start, false);
+            return;
+        }
 
         ItemStack cursorStack = player.currentScreenHandler.getCursorStack();
 //        ItemsBegone.LOGGER.info("onSlotClick fired. {}", cursorStack.toString());
 
-        boolean blacklist = ItemsBegone.isBlacklisted(cursorStack, team);
+        boolean blacklist = BlacklistIndex.isBlacklisted(rules, cursorStack);
 
-        if (blacklist) {
-            ItemsBegone.LOGGER.info("Player '{}' attempted to interact (before) with blacklisted item ({})!", player.getName(), cursorStack.getName());
+        if (blacklist && !ItemsBegone.removeContents(player, rules, cursorStack, AuditLog.Action.SLOT_CLICK)) {
+            AuditLog.record(player, cursorStack, AuditLog.Action.SLOT_CLICK);
             player.currentScreenHandler.setCursorStack(ItemStack.EMPTY);
-            if (!ConfigLoader.CONFIG.delete_on_deny) {
+            if (!BlacklistIndex.current().deleteOnDeny) {
                 player.currentScreenHandler.getSlot(slotIndex).insertStack(cursorStack);
             }
         }
+        Metrics.Hook.SLOT_CLICK_TAIL.probe.record(start, blacklist);
     }
 
     // HEAD event fires BEFORE player clicks, allowing us to monitor PUT DOWN events/shift-clicking
     // to be more specific, it utilizes the fact that the item is likely still in its slot at this point
     @Inject(method = "onSlotClick", at = @At("HEAD"), cancellable = true)
     private void onSlotClickAfter(int slotIndex, int button, SlotActionType actionType, PlayerEntity player, CallbackInfo ci) {
-        String team = ItemsBegone.getTeam(player);
+        // Nothing moves until a drag ends, and then only the cursor stack is spread out, so a single check of
+        // the cursor covers every slot the drag touched.
+        boolean drag = actionType == SlotActionType.QUICK_CRAFT;
+        if (drag && net.minecraft.screen.ScreenHandler.unpackQuickCraftStage(button) != 2) {
+            return;
+        }
+        long start = Metrics.start();
+        RuleSet.TeamRules rules = ItemsBegone.getRules(player);
+        if (rules.empty) {
+            Metrics.Hook.SLOT_CLICK_HEAD.probe.record(start, false);
+            return;
+        }
+        if (drag) {
+            itemsbegone$onDragEnd(player, rules, ci);
+            Metrics.Hook.SLOT_CLICK_HEAD.probe.record(start, ci.isCancelled());
+            return;
+        }
         ItemStack cursorStack;
 
         try {
@@ -46,15 +79,36 @@ public abstract class ScreenHandler {
         }
 //        ItemsBegone.LOGGER.info("onSlotClick (after) fired. {}", cursorStack.toString());
 
-        boolean blacklist = ItemsBegone.isBlacklisted(cursorStack, team);
+        boolean blacklist = BlacklistIndex.isBlacklisted(rules, cursorStack);
 
-        if (blacklist) {
-            ItemsBegone.LOGGER.info("Player '{}' attempted to interact (after) with blacklisted item ({})!", player.getName(), cursorStack.getName());
+        if (blacklist && ItemsBegone.removeContents(player, rules, cursorStack, AuditLog.Action.SLOT_CLICK)) {
+            // Only what it holds was blacklisted, and that is gone now, so the click can go ahead.
+            player.currentScreenHandler.getSlot(slotIndex).markDirty();
+        } else if (blacklist) {
+            AuditLog.record(player, cursorStack, AuditLog.Action.SLOT_CLICK);
             player.currentScreenHandler.setCursorStack(ItemStack.EMPTY);
-            if (!ConfigLoader.CONFIG.delete_on_deny) {
+            if (!BlacklistIndex.current().deleteOnDeny) {
                 player.currentScreenHandler.getSlot(slotIndex).insertStack(cursorStack);
                 ci.cancel();
             }
         }
+        Metrics.Hook.SLOT_CLICK_HEAD.probe.record(start, blacklist);
+    }
+
+    @Unique
+    private void itemsbegone$onDragEnd(PlayerEntity player, RuleSet.TeamRules rules, CallbackInfo ci) {
+        ItemStack cursorStack = player.currentScreenHandler.getCursorStack();
+        if (
+                BlacklistIndex.isBlacklisted(rules, cursorStack)
+                && !ItemsBegone.removeContents(player, rules, cursorStack, AuditLog.Action.SLOT_CLICK)
+        ) {
+            AuditLog.record(player, cursorStack, AuditLog.Action.SLOT_CLICK);
+            player.currentScreenHandler.setCursorStack(ItemStack.EMPTY);
+            ItemsBegone.dispose(player, cursorStack);
+            // Vanilla resets the drag at the end of the click that is cancelled here. Without this the handler stays
+            // mid-drag, and swallows the player's next one.
+            endQuickCraft();
+            ci.cancel();
+        }
     }
 }
@@ -1,6 +1,7 @@
 package com.github.zeropointnothing.mixin;
 
 import com.github.zeropointnothing.ItemsBegone;
+import com.github.zeropointnothing.Metrics;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.item.ItemStack;
 import org.spongepowered.asm.mixin.Mixin;
@@ -12,6 +13,8 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 public class Slot {
     @Inject(method = "onTakeItem", at = @At("TAIL"))
     private void onTakeItem(PlayerEntity player, ItemStack stack, CallbackInfo ci) {
-        ItemsBegone.checkInventory(player);
+        long start = Metrics.start();
+        boolean denied = ItemsBegone.checkInventory(player);
+        Metrics.Hook.TAKE_ITEM.probe.record(start, denied);
     }
 }
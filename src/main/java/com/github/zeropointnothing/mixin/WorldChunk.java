@@ -0,0 +1,32 @@
+package com.github.zeropointnothing.mixin;
+
+import com.github.zeropointnothing.VerifiedContainer;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.util.math.BlockPos;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+import java.util.Map;
+
+@Mixin(net.minecraft.world.chunk.WorldChunk.class)
+public abstract class WorldChunk {
+    @Shadow @Final private Map<BlockPos, BlockEntity> blockEntities;
+
+    // Only used when saving the chunk. Block entity NBT also ends up on items and in packets, which must not carry it.
+    @Inject(method = "getPackedBlockEntityNbt", at = @At("RETURN"))
+    private void onGetPackedBlockEntityNbt(BlockPos pos, CallbackInfoReturnable<NbtCompound> cir) {
+        NbtCompound nbt = cir.getReturnValue();
+        BlockEntity blockEntity = blockEntities.get(pos);
+        if (nbt != null && blockEntity != null && !blockEntity.isRemoved()) {
+            long verified = ((VerifiedContainer) blockEntity).itemsbegone$getVerified();
+            if (verified != 0) {
+                nbt.putLong(VerifiedContainer.NBT_KEY, verified);
+            }
+        }
+    }
+}